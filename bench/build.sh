@@ -0,0 +1,28 @@
+#!/bin/bash
+# build and run the JMH benchmarks, e.g.
+#   bench/build.sh                                  every benchmark, every size
+#   bench/build.sh SolverBenchmark -p size=1000     JMH options are passed through
+#
+# needs the JMH jars in bench/lib (jmh-core, jmh-generator-annprocess, jopt-simple,
+# commons-math3); they are fetched from Maven Central the first time if missing
+cd "$(dirname "$0")/.."
+
+JMH_VERSION=1.37
+LIB=bench/lib
+REPO=https://repo1.maven.org/maven2
+mkdir -p $LIB
+for jar in org/openjdk/jmh/jmh-core/$JMH_VERSION/jmh-core-$JMH_VERSION.jar \
+           org/openjdk/jmh/jmh-generator-annprocess/$JMH_VERSION/jmh-generator-annprocess-$JMH_VERSION.jar \
+           net/sf/jopt-simple/jopt-simple/5.0.4/jopt-simple-5.0.4.jar \
+           org/apache/commons/commons-math3/3.6.1/commons-math3-3.6.1.jar; do
+    [ -f $LIB/$(basename $jar) ] || curl -sSfL -o $LIB/$(basename $jar) $REPO/$jar || exit 1
+done
+CP=$(ls $LIB/*.jar | tr '\n' ':')
+
+echo "Compiling..."
+rm -rf bench/out
+mkdir -p bench/out
+javac -cp "$CP" -d bench/out src/*.java bench/src/*.java || exit 1
+
+echo "Running..."
+java -Djava.awt.headless=true -cp "bench/out:$CP" org.openjdk.jmh.Main "$@"
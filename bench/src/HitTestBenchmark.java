@@ -0,0 +1,78 @@
+import java.awt.geom.Rectangle2D;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * What a click costs: finding the point near the mouse (the canvas's findNearbyPoint, now
+ * SketchEngine.findPoint), finding the topmost line, and the LineObject / ArcObject contains
+ * tests themselves. Clicks land at seeded random spots over the whole drawing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitTestBenchmark {
+    private static final int CLICKS = 1024;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private SketchEngine engine;
+    private LineObject line;
+    private ArcObject arc;
+    private int[] clickX, clickY;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void build() {
+        engine = SketchGenerator.workload("mixed", size, 42);
+        Random random = new Random(7);
+        Rectangle2D bounds = engine.getBounds();
+        clickX = new int[CLICKS];
+        clickY = new int[CLICKS];
+        for (int i = 0; i < CLICKS; i++) {
+            clickX[i] = (int) (bounds.getX() + random.nextDouble() * bounds.getWidth());
+            clickY[i] = (int) (bounds.getY() + random.nextDouble() * bounds.getHeight());
+        }
+        line = engine.addLine(engine.addPoint(0, 0), engine.addPoint(300, 200));
+        arc = new ArcObject(0, 0, 300, 300, 30, 240);
+    }
+
+    private int click() {
+        return next = (next + 1) & (CLICKS - 1);
+    }
+
+    @Benchmark
+    public PointObject findNearbyPoint() {
+        int i = click();
+        return engine.findPoint(clickX[i], clickY[i]);
+    }
+
+    @Benchmark
+    public LineObject findTopmostLine() {
+        int i = click();
+        return engine.findTopmost(clickX[i], clickY[i], LineObject.class);
+    }
+
+    @Benchmark
+    public boolean lineContains() {
+        int i = click();
+        return line.contains(clickX[i] % 300, clickY[i] % 300);
+    }
+
+    @Benchmark
+    public boolean arcContains() {
+        int i = click();
+        return arc.contains(clickX[i] % 300, clickY[i] % 300);
+    }
+}
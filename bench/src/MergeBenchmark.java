@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Welding close points (mergeClosePoints over the whole drawing) and deleting lines, which also
+ * removes endpoints nothing else uses (the canvas's cleanupLeftoverPoints, now part of
+ * SketchEngine.deleteLine). Both change the drawing, so it is rebuilt, untimed, before every call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeBenchmark {
+    private static final int DELETES = 1000;
+
+    @State(Scope.Benchmark)
+    public static class Points {
+        @Param({"100", "1000", "10000", "100000", "1000000"})
+        public int size;
+
+        SketchEngine engine;
+
+        @Setup(Level.Invocation)
+        public void build() {
+            // one point in ten has a twin to weld
+            engine = new SketchGenerator(42).twins(0.1).generate(SketchGenerator.Scenario.PAIRS, size);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Lines {
+        @Param({"100", "1000", "10000", "100000", "1000000"})
+        public int size;
+
+        SketchEngine engine;
+        List<LineObject> doomed;
+
+        @Setup(Level.Invocation)
+        public void build() {
+            engine = SketchGenerator.workload("mixed", size, 42);
+            doomed = new ArrayList<>(DELETES);
+            // every stride-th line, spread over the drawing
+            int stride = Math.max(1, size / DELETES), seen = 0;
+            for (GeometricObject obj : engine.getObjects()) {
+                if (obj instanceof LineObject && seen++ % stride == 0 && doomed.size() < DELETES) {
+                    doomed.add((LineObject) obj);
+                }
+            }
+            // fewer lines than DELETES: the extra deletes hit lines already gone, which is a no-op
+            while (doomed.size() < DELETES) doomed.add(doomed.get(0));
+        }
+    }
+
+    @Benchmark
+    public int mergeClosePoints(Points state) {
+        state.engine.mergeClosePoints();
+        return state.engine.getObjects().size();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DELETES)
+    public int cleanupLeftoverPoints(Lines state) {
+        for (LineObject line : state.doomed) state.engine.deleteLine(line);
+        return state.engine.getObjects().size();
+    }
+}
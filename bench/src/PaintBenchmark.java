@@ -0,0 +1,97 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.SwingUtilities;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Painting into an offscreen image (run with -Djava.awt.headless=true, which bench/build.sh sets).
+ *
+ * paintComponent is what the canvas does on every repaint once its tiles are rendered: copy the
+ * cached tiles and draw the overlay. renderTiles is what rendering those tiles costs: the batched
+ * geometry of the whole view painted straight from the RenderBatches. The view is zoomed out until
+ * the whole drawing fits, which is the worst case for both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PaintBenchmark {
+    private static final int WIDTH = 1280, HEIGHT = 960;
+
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private DrawingCanvas canvas;
+    private RenderBatches batches;
+    private double scale;
+    private Rectangle2D view;
+    private BufferedImage image;
+    private Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void build() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            canvas = new DrawingCanvas();
+            canvas.setAsyncSolving(false);
+            canvas.setBackground(Color.WHITE);
+            canvas.setSize(WIDTH, HEIGHT);
+            SketchGenerator.workload(canvas.getEngine(), "mixed", size, 42);
+            canvas.zoomToFit(canvas.getEngine().getBounds());
+        });
+        batches = new RenderBatches();
+        for (GeometricObject obj : canvas.getEngine().getObjects()) batches.add(obj);
+        scale = canvas.getScale();
+        view = canvas.getEngine().getBounds();
+        image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        // render every visible tile before measuring
+        do {
+            SwingUtilities.invokeAndWait(this::paint);
+            Thread.sleep(10);
+            SwingUtilities.invokeAndWait(() -> {});
+        } while (canvas.isRenderPending());
+    }
+
+    @TearDown(Level.Trial)
+    public void dispose() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() throws Exception {
+        SwingUtilities.invokeAndWait(this::paint);
+        return image;
+    }
+
+    // paintComponent transforms the graphics it is given, so each paint gets its own copy
+    private void paint() {
+        Graphics2D copy = (Graphics2D) g.create();
+        canvas.paintComponent(copy);
+        copy.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage renderTiles() {
+        Graphics2D tile = image.createGraphics();
+        tile.scale(scale, scale);
+        tile.translate(-view.getX(), -view.getY());
+        batches.paint(tile, view);
+        tile.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,82 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * ConstraintSolverManager.solve over every constraint of a drawing, for each constraint kind on
+ * its own, for a mix, and for the coupled SketchGenerator scenarios, with each relaxation
+ * schedule (the schedule makes no difference to NEWTON). The coordinates are put back before
+ * every call so each one solves the same unsolved drawing. `threads` sizes the solver's pool, so
+ * COLORED and JACOBI can be compared with SWEEP on one large component (mesh, grid) as cores are
+ * added, e.g. -p workload=mesh -p threads=1,2,4,8.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SolverBenchmark {
+    @Param({"100", "1000", "10000", "100000", "1000000"})
+    public int size;
+
+    // a SketchGenerator workload
+    @Param({"horizontal", "vertical", "parallel", "perpendicular", "equal-length",
+            "parallel-group", "equal-length-group", "mixed", "grid", "mesh", "chains", "clusters"})
+    public String workload;
+
+    @Param({"RELAXATION", "NEWTON"})
+    public ConstraintSolverManager.SolverMode mode;
+
+    @Param({"SWEEP", "WORKLIST", "COLORED", "JACOBI"})
+    public ConstraintSolverManager.Schedule schedule;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private SketchEngine engine;
+    private ForkJoinPool pool;
+    private ConstraintSolverManager solver;
+    private List<Constraint> constraints;
+    private double[] xs, ys;
+
+    @Setup(Level.Trial)
+    public void build() {
+        engine = SketchGenerator.workload(workload, size, 42);
+        pool = new ForkJoinPool(threads);
+        solver = new ConstraintSolverManager(pool);
+        solver.setMode(mode);
+        solver.setSchedule(schedule);
+        constraints = new ArrayList<>(engine.getConstraints());
+        PointStore store = engine.getPointStore();
+        xs = store.xs().clone();
+        ys = store.ys().clone();
+    }
+
+    @Setup(Level.Invocation)
+    public void unsolve() {
+        PointStore store = engine.getPointStore();
+        System.arraycopy(xs, 0, store.xs(), 0, store.size());
+        System.arraycopy(ys, 0, store.ys(), 0, store.size());
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<ConstraintComponent> solve() {
+        return solver.solve(engine.getPointStore(), constraints);
+    }
+}
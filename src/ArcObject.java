@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.awt.geom.Rectangle2D;
 
 
 /**
@@ -21,11 +22,24 @@ public class ArcObject extends GeometricObject {
         this.startAngle = startAngle;
         this.arcAngle = arcAngle;
     }
+
+    public int getX() { return x; }
+    public int getY() { return y; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getStartAngle() { return startAngle; }
+    public int getArcAngle() { return arcAngle; }
     
     @Override
     public void draw(Graphics2D g) {
         g.drawArc(x, y, width, height, startAngle, arcAngle);
     }
+
+    @Override
+    public boolean appendTo(RenderBatches.Batch batch) {
+        batch.arc(x, y, width, height, startAngle, arcAngle);
+        return true;
+    }
     
     // Approximate hit-testing for an arc -- for deleting purposes 
     @Override
@@ -55,6 +69,11 @@ public class ArcObject extends GeometricObject {
         }
     }
     
+    @Override
+    public Rectangle2D getBounds() {
+        return new Rectangle2D.Double(x, y, width, height);
+    }
+    
     @Override
     public String toString() {
         return "Arc[(" + x + ", " + y + "), w=" + width + ", h=" + height + 
@@ -0,0 +1,118 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.swing.SwingUtilities;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Runs solves off the Swing event thread.
+ *
+ * `request` (called on the EDT) snapshots the affected components into a SolveWorkspace and hands
+ * it to a dedicated solver thread. A newer request cancels the one in flight -- latest wins -- and
+ * takes over its dirty points and constraints, so nothing is lost. Results are published back on
+ * the EDT in one step, when the solve finishes or at a checkpoint, and only then do we repaint.
+ */
+public class AsyncSolver {
+    // receives solved coordinates on the EDT; expected to scatter them into the store and repaint
+    public interface Publisher {
+        void publish(SolveWorkspace workspace, double[] xs, double[] ys);
+    }
+
+    // how often a long solve shows its intermediate state
+    private static final long CHECKPOINT_NANOS = 100_000_000L;
+
+    private final ConstraintSolverManager solver;
+    private final PointStore store;
+    private final ConstraintGraph graph;
+    private final Publisher onPublish;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sketchpad-solver");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // EDT-only state
+    private final Set<Integer> pendingPoints = new HashSet<>();
+    private final List<Constraint> pendingConstraints = new ArrayList<>();
+    private Job current = null;
+
+    public AsyncSolver(ConstraintSolverManager solver, PointStore store, ConstraintGraph graph,
+                       Publisher onPublish) {
+        this.solver = solver;
+        this.store = store;
+        this.graph = graph;
+        this.onPublish = onPublish;
+    }
+
+    // start a solve of everything dirty so far, replacing any solve still running
+    public void request(Collection<Integer> dirtyPoints, Collection<Constraint> dirtyConstraints) {
+        // nothing new: let the running solve finish
+        if (dirtyPoints.isEmpty() && dirtyConstraints.isEmpty() && current != null) return;
+        pendingPoints.addAll(dirtyPoints);
+        pendingConstraints.addAll(dirtyConstraints);
+        cancel();
+        if (pendingPoints.isEmpty() && pendingConstraints.isEmpty()) return;
+        SolveWorkspace workspace = SolveWorkspace.gather(store, graph.affected(pendingPoints, pendingConstraints));
+        Job job = new Job(workspace);
+        current = job;
+        executor.execute(job);
+    }
+
+    // stop the running solve; its dirty points and constraints stay pending for the next request
+    public void cancel() {
+        if (current != null) {
+            current.cancelled = true;
+            current = null;
+        }
+    }
+
+    public boolean isBusy() { return current != null; }
+
+    private void publish(Job job, double[] xs, double[] ys, boolean done) {
+        // a newer request or an edit may have superseded this job while the result was queued
+        if (job != current || job.cancelled) return;
+        if (done) {
+            pendingPoints.clear();
+            pendingConstraints.clear();
+            current = null;
+        }
+        onPublish.publish(job.workspace, xs, ys);
+    }
+
+    private class Job implements Runnable, ConstraintSolverManager.SolveControl {
+        final SolveWorkspace workspace;
+        volatile boolean cancelled = false;
+        final AtomicLong lastCheckpoint = new AtomicLong(System.nanoTime());
+
+        Job(SolveWorkspace workspace) {
+            this.workspace = workspace;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) return;
+            solver.solveComponents(workspace.xs(), workspace.ys(), workspace.components(), this);
+            if (cancelled) return;
+            SwingUtilities.invokeLater(() -> publish(this, workspace.xs(), workspace.ys(), true));
+        }
+
+        @Override
+        public boolean isCancelled() { return cancelled; }
+
+        @Override
+        public void checkpoint() {
+            long last = lastCheckpoint.get();
+            long now = System.nanoTime();
+            // only one of the solver threads takes each checkpoint
+            if (now - last < CHECKPOINT_NANOS || !lastCheckpoint.compareAndSet(last, now)) return;
+            double[] xs = workspace.xs().clone(), ys = workspace.ys().clone();
+            SwingUtilities.invokeLater(() -> publish(this, xs, ys, false));
+        }
+    }
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Compact binary sketch files (".skb"). All numbers are little-endian; the file is a fixed header
+ * followed by one column per field, so each section can be copied or wrapped in a single step:
+ *
+ *   header       int magic "SKPD", version, flags (0),
+ *                    points, lines, arcs, constraints, operands
+ *   points       double x[points], double y[points]
+ *   lines        int start[lines], int end[lines]                       point numbers
+ *   arcs         int x[arcs], y, width, height, start, sweep
+ *   constraints  int type[constraints]                                  SketchFormats.CONSTRAINT_KINDS
+ *                int operand[operands]                                  line numbers, arity(type) each;
+ *                                                                       the groups' count comes first
+ *
+ * Loading maps the file and hands the coordinate and endpoint columns straight to the engine's bulk
+ * loaders, so opening a drawing costs about as much as copying its arrays. A mapping is limited to
+ * 2 GB, i.e. roughly a hundred million points.
+ */
+public class BinarySketchFormat implements SketchFormat {
+    private static final int MAGIC = 0x53_4B_50_44;  // "SKPD"
+    public static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8 * Integer.BYTES;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+
+    @Override
+    public String extension() { return ".skb"; }
+
+    @Override
+    public void read(Path file, SketchEngine engine) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) throw new IOException(file + ": not a sketch file");
+            if (size > Integer.MAX_VALUE) throw new IOException(file + ": too large to map");
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            if (map.getInt(0) != MAGIC) throw new IOException(file + ": not a sketch file");
+            int version = map.getInt(4);
+            if (version != VERSION) throw new IOException(file + ": unsupported version " + version);
+            int points = map.getInt(12), lines = map.getInt(16), arcs = map.getInt(20);
+            int constraints = map.getInt(24), operands = map.getInt(28);
+            if (points < 0 || lines < 0 || arcs < 0 || constraints < 0 || operands < 0) {
+                throw new IOException(file + ": corrupt header");
+            }
+            long expected = HEADER_BYTES + 16L * points + 8L * lines + 24L * arcs + 4L * constraints + 4L * operands;
+            if (size != expected) throw new IOException(file + ": expected " + expected + " bytes, found " + size);
+
+            int at = HEADER_BYTES;
+            PointObject[] pointObjects = engine.addPoints(section(map, at, 8 * points).asDoubleBuffer(),
+                                                          section(map, at + 8 * points, 8 * points).asDoubleBuffer(),
+                                                          points);
+            at += 16 * points;
+            IntBuffer starts = section(map, at, 4 * lines).asIntBuffer();
+            IntBuffer ends = section(map, at + 4 * lines, 4 * lines).asIntBuffer();
+            at += 8 * lines;
+            LineObject[] lineObjects;
+            try {
+                lineObjects = engine.addLines(pointObjects, starts, ends, lines);
+            } catch (IndexOutOfBoundsException e) {
+                throw new IOException(file + ": line endpoint out of range", e);
+            }
+
+            IntBuffer[] arc = new IntBuffer[6];
+            for (int k = 0; k < 6; k++) arc[k] = section(map, at + 4 * k * arcs, 4 * arcs).asIntBuffer();
+            at += 24 * arcs;
+            for (int i = 0; i < arcs; i++) {
+                engine.add(new ArcObject(arc[0].get(i), arc[1].get(i), arc[2].get(i),
+                                         arc[3].get(i), arc[4].get(i), arc[5].get(i)));
+            }
+
+            IntBuffer types = section(map, at, 4 * constraints).asIntBuffer();
+            IntBuffer operand = section(map, at + 4 * constraints, 4 * operands).asIntBuffer();
+            try {
+                for (int i = 0; i < constraints; i++) {
+                    String kind = SketchFormats.CONSTRAINT_KINDS.get(types.get(i));
+                    int arity = SketchFormats.arity(kind);
+                    if (arity == SketchFormats.ANY) arity = operand.get();
+                    List<LineObject> on = new ArrayList<>(arity);
+                    for (int k = arity; k > 0; k--) on.add(lineObjects[operand.get()]);
+                    engine.addConstraint(SketchFormats.constraint(kind, on));
+                }
+            } catch (IndexOutOfBoundsException | BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException(file + ": constraint type or operand out of range", e);
+            }
+        }
+    }
+
+    private static ByteBuffer section(MappedByteBuffer map, int offset, int bytes) {
+        return map.slice(offset, bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void write(SketchEngine engine, Path file) throws IOException {
+        List<PointObject> points = new ArrayList<>();
+        List<LineObject> lines = new ArrayList<>();
+        List<ArcObject> arcs = new ArrayList<>();
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof PointObject) points.add((PointObject) obj);
+            else if (obj instanceof LineObject) lines.add((LineObject) obj);
+            else if (obj instanceof ArcObject) arcs.add((ArcObject) obj);
+        }
+        // point number by store slot
+        int[] pointIds = new int[engine.getPointStore().size()];
+        Arrays.fill(pointIds, -1);
+        for (int i = 0; i < points.size(); i++) pointIds[points.get(i).getIndex()] = i;
+        Map<LineObject, Integer> lineIds = new IdentityHashMap<>();
+        for (int i = 0; i < lines.size(); i++) lineIds.put(lines.get(i), i);
+        int operands = 0;
+        for (Constraint c : engine.getConstraints()) {
+            operands += c.lines().size();
+            if (SketchFormats.arity(SketchFormats.kindOf(c)) == SketchFormats.ANY) operands++;
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.putInt(MAGIC).putInt(VERSION).putInt(0)
+               .putInt(points.size()).putInt(lines.size()).putInt(arcs.size())
+               .putInt(engine.getConstraints().size()).putInt(operands);
+            for (PointObject p : points) putDouble(channel, buf, p.getX());
+            for (PointObject p : points) putDouble(channel, buf, p.getY());
+            for (LineObject line : lines) putInt(channel, buf, pointIds[line.getStartPoint().getIndex()]);
+            for (LineObject line : lines) putInt(channel, buf, pointIds[line.getEndPoint().getIndex()]);
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getX());
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getY());
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getWidth());
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getHeight());
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getStartAngle());
+            for (ArcObject arc : arcs) putInt(channel, buf, arc.getArcAngle());
+            for (Constraint c : engine.getConstraints()) {
+                putInt(channel, buf, SketchFormats.CONSTRAINT_KINDS.indexOf(SketchFormats.kindOf(c)));
+            }
+            for (Constraint c : engine.getConstraints()) {
+                if (SketchFormats.arity(SketchFormats.kindOf(c)) == SketchFormats.ANY) putInt(channel, buf, c.lines().size());
+                for (LineObject line : c.lines()) putInt(channel, buf, lineIds.get(line));
+            }
+            flush(channel, buf);
+        }
+    }
+
+    private static void putDouble(FileChannel channel, ByteBuffer buf, double v) throws IOException {
+        if (buf.remaining() < Double.BYTES) flush(channel, buf);
+        buf.putDouble(v);
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buf, int v) throws IOException {
+        if (buf.remaining() < Integer.BYTES) flush(channel, buf);
+        buf.putInt(v);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buf) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) channel.write(buf);
+        buf.clear();
+    }
+}
@@ -1,12 +1,42 @@
+import java.util.List;
+
 /**
  * Junita Sirait - COS583
  * 
  * Constraint interface to be implemented by all constraints. 
  * 
- * TODO: `compareTo` could be beneficial to allow us to prioritize some constraints over others. 
- * I also need to be consistent about what sqError unit -- pixels? 
+ * Constraints do not move PointObjects one by one; the solver hands them the coordinate arrays 
+ * (see PointStore) together with `at`, where `at[k]` is the slot in `xs`/`ys` of the k-th point 
+ * returned by `points()`. 
+ * 
+ * `apply` is used by the relaxation solver. The Newton (Levenberg-Marquardt) solver instead asks 
+ * each constraint for its residuals -- signed errors in pixels, zero when satisfied -- and their 
+ * gradients with respect to the (x, y) coordinates of each operand point. 
+ * 
+ * `apply` returns the error it found and keeps no state of its own, so the same constraint can be 
+ * applied by a background solve and a live drag at once. That error and the residuals are both 
+ * in pixels, so they can be compared with each other and across constraint types; the worklist schedule of 
+ * ConstraintSolverManager uses that to apply the worst constraints first. 
  */
 public interface Constraint { 
-    void apply(); 
-    double error(); 
+    // the lines this constraint is defined on 
+    List<LineObject> lines(); 
+    // store indices of the points this constraint reads and moves, in operand order 
+    int[] points(); 
+    // move the points towards satisfying the constraint; returns the error in pixels 
+    double apply(double[] xs, double[] ys, int[] at); 
+
+    // number of scalar residual rows this constraint contributes 
+    default int residualCount() { return 1; } 
+    double residual(int row, double[] xs, double[] ys, int[] at); 
+    // fills grad[2k], grad[2k+1] with d(residual)/dx, d(residual)/dy of the k-th operand point 
+    void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad); 
+
+    // the operands (positions in points()) residual `row` depends on, or null for all of them. 
+    // constraints over many lines use this to keep each row's gradient short: `gradient` then 
+    // fills entries for these operands only, in this order 
+    default int[] operandsOf(int row) { return null; } 
+
+    // what is left of this constraint once `line` is deleted, or null when nothing is 
+    default Constraint without(LineObject line) { return null; } 
 }
@@ -0,0 +1,144 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ * 
+ * One connected component of the constraint graph: the constraints, their operand slots in the 
+ * PointStore, and how the last solve of this component went. 
+ * 
+ * For the solver it also works out, on first use, which constraints read each point, and a 
+ * colouring of the constraints: constraints of the same colour share no point, so they can be 
+ * applied at the same time. 
+ */
+public class ConstraintComponent {
+    private final List<Constraint> constraints = new ArrayList<>(); 
+    private final List<int[]> at = new ArrayList<>(); 
+    private int[][] slots; 
+    // sorted distinct point slots, and for each the positions of the constraints reading it 
+    private int[] pointSlots; 
+    private int[][] incident; 
+    // positions of the constraints of each colour 
+    private int[][] colors; 
+
+    // filled in by the solver 
+    int iterations; 
+    boolean converged; 
+    double maxError; 
+    // applies spent by the WORKLIST schedule; if it fell back to sweeps, `iterations` counts only those 
+    long worklistApplies; 
+
+    public void add(Constraint c, int[] slots) {
+        constraints.add(c); 
+        at.add(slots); 
+        this.slots = null; 
+        this.pointSlots = null; 
+        this.incident = null; 
+        this.colors = null; 
+    }
+
+    public List<Constraint> constraints() { return constraints; } 
+    public int[][] slots() {
+        if (slots == null) slots = at.toArray(new int[0][]); 
+        return slots; 
+    } 
+    public int size() { return constraints.size(); } 
+
+    // the distinct point slots the constraints read, in increasing order 
+    public int[] pointSlots() {
+        if (pointSlots == null) buildIncidence(); 
+        return pointSlots; 
+    }
+
+    // positions in constraints() of the constraints that read point `slot`, in order 
+    public int[] constraintsAt(int slot) {
+        if (pointSlots == null) buildIncidence(); 
+        int k = Arrays.binarySearch(pointSlots, slot); 
+        return k < 0 ? new int[0] : incident[k]; 
+    }
+
+    // the constraints (positions in constraints()) split into classes that share no point 
+    public int[][] colorClasses() {
+        if (colors == null) buildColors(); 
+        return colors; 
+    }
+
+    // greedy colouring in constraint order: each constraint takes the lowest colour that no earlier 
+    // constraint on one of its points has, so there are at most as many colours as the most 
+    // neighbours one constraint has, plus one (constraintsAt lists are in increasing order) 
+    private void buildColors() {
+        int[][] at = slots(); 
+        int n = at.length; 
+        int[] color = new int[n]; 
+        // taken[c] == i + 1 while colour c is used by a neighbour of constraint i 
+        int[] taken = new int[n + 1]; 
+        int count = 0; 
+        for (int i = 0; i < n; i++) {
+            for (int slot : at[i]) {
+                for (int j : constraintsAt(slot)) {
+                    if (j >= i) break; 
+                    taken[color[j]] = i + 1; 
+                }
+            }
+            int c = 0; 
+            while (taken[c] == i + 1) c++; 
+            color[i] = c; 
+            count = Math.max(count, c + 1); 
+        }
+        int[] size = new int[count]; 
+        for (int c : color) size[c]++; 
+        int[][] classes = new int[count][]; 
+        for (int c = 0; c < count; c++) classes[c] = new int[size[c]]; 
+        Arrays.fill(size, 0); 
+        for (int i = 0; i < n; i++) classes[color[i]][size[color[i]]++] = i; 
+        this.colors = classes; 
+    }
+
+    private void buildIncidence() {
+        int[][] at = slots(); 
+        int total = 0; 
+        for (int[] a : at) total += a.length; 
+        int[] all = new int[total]; 
+        int n = 0; 
+        for (int[] a : at) for (int slot : a) all[n++] = slot; 
+        Arrays.sort(all); 
+        int distinct = 0; 
+        for (int i = 0; i < total; i++) {
+            if (i == 0 || all[i] != all[i - 1]) all[distinct++] = all[i]; 
+        }
+        int[] points = Arrays.copyOf(all, distinct); 
+
+        int[] count = new int[distinct]; 
+        int[] last = new int[distinct]; 
+        Arrays.fill(last, -1); 
+        for (int i = 0; i < at.length; i++) {
+            for (int slot : at[i]) {
+                int k = Arrays.binarySearch(points, slot); 
+                // a constraint can name the same point twice 
+                if (last[k] == i) continue; 
+                last[k] = i; 
+                count[k]++; 
+            }
+        }
+        int[][] lists = new int[distinct][]; 
+        for (int k = 0; k < distinct; k++) lists[k] = new int[count[k]]; 
+        Arrays.fill(count, 0); 
+        Arrays.fill(last, -1); 
+        for (int i = 0; i < at.length; i++) {
+            for (int slot : at[i]) {
+                int k = Arrays.binarySearch(points, slot); 
+                if (last[k] == i) continue; 
+                last[k] = i; 
+                lists[k][count[k]++] = i; 
+            }
+        }
+        this.pointSlots = points; 
+        this.incident = lists; 
+    }
+
+    public int getIterations() { return iterations; } 
+    public boolean isConverged() { return converged; } 
+    public double getMaxError() { return maxError; } 
+    public long getWorklistApplies() { return worklistApplies; } 
+}
@@ -0,0 +1,145 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Junita Sirait - COS583
+ * 
+ * Constraint graph: two constraints are linked when they share a PointObject. Constraints in 
+ * different connected components never move the same points, so each component can be solved 
+ * (and checked for convergence) on its own. 
+ * 
+ * The graph is maintained incrementally (point slot -> incident constraints) as constraints are 
+ * added and points are merged, so after an edit we only walk the subgraph reachable from what 
+ * changed instead of the whole drawing. A full decomposition uses union-find over the point slots. 
+ */
+public class ConstraintGraph {
+    private final Map<Integer, List<Constraint>> incident = new HashMap<>(); 
+    // insertion order, so components come out the same regardless of hashing 
+    private final Map<Constraint, Long> order = new IdentityHashMap<>(); 
+    private long counter = 0; 
+
+    public void add(Constraint c) {
+        if (order.containsKey(c)) return; 
+        order.put(c, counter++); 
+        for (int slot : c.points()) {
+            List<Constraint> list = incident.computeIfAbsent(slot, k -> new ArrayList<>()); 
+            if (!list.contains(c)) list.add(c); 
+        }
+    }
+
+    public void remove(Constraint c) {
+        if (order.remove(c) == null) return; 
+        for (int slot : c.points()) {
+            List<Constraint> list = incident.get(slot); 
+            if (list == null) continue; 
+            list.remove(c); 
+            if (list.isEmpty()) incident.remove(slot); 
+        }
+    }
+
+    // the point in slot `from` was merged into `to`: its constraints now reference `to` 
+    public void movePoint(int from, int to) {
+        if (from == to) return; 
+        List<Constraint> moved = incident.remove(from); 
+        if (moved == null) return; 
+        List<Constraint> target = incident.computeIfAbsent(to, k -> new ArrayList<>()); 
+        for (Constraint c : moved) {
+            if (!target.contains(c)) target.add(c); 
+        }
+    }
+
+    public List<Constraint> constraintsAt(int slot) {
+        List<Constraint> list = incident.get(slot); 
+        return list == null ? Collections.emptyList() : list; 
+    }
+
+    public int size() { return order.size(); } 
+
+    // components reachable from the dirty points and constraints; cost is proportional to the 
+    // size of those components, not of the whole graph 
+    public List<ConstraintComponent> affected(Collection<Integer> dirtyPoints, Collection<Constraint> dirtyConstraints) {
+        Set<Integer> seenPoints = new HashSet<>(); 
+        Set<Constraint> seen = Collections.newSetFromMap(new IdentityHashMap<>()); 
+        ArrayDeque<Integer> queue = new ArrayDeque<>(); 
+        for (int slot : dirtyPoints) {
+            if (seenPoints.add(slot)) queue.add(slot); 
+        }
+        for (Constraint c : dirtyConstraints) {
+            if (!order.containsKey(c)) continue; 
+            for (int slot : c.points()) {
+                if (seenPoints.add(slot)) queue.add(slot); 
+            }
+        }
+        List<Constraint> reached = new ArrayList<>(); 
+        while (!queue.isEmpty()) {
+            for (Constraint c : constraintsAt(queue.poll())) {
+                if (!seen.add(c)) continue; 
+                reached.add(c); 
+                for (int slot : c.points()) {
+                    if (seenPoints.add(slot)) queue.add(slot); 
+                }
+            }
+        }
+        reached.sort(Comparator.comparingLong(order::get)); 
+        return components(reached); 
+    }
+
+    // split `constraints` into connected components, ordered by their first constraint so the 
+    // result does not depend on hashing or thread scheduling 
+    public static List<ConstraintComponent> components(List<Constraint> constraints) {
+        int n = constraints.size(); 
+        int[][] at = new int[n][]; 
+        Map<Integer, Integer> local = new HashMap<>(); 
+        for (int i = 0; i < n; i++) {
+            at[i] = constraints.get(i).points(); 
+            for (int slot : at[i]) local.putIfAbsent(slot, local.size()); 
+        }
+
+        int[] parent = new int[local.size()]; 
+        for (int i = 0; i < parent.length; i++) parent[i] = i; 
+        for (int i = 0; i < n; i++) {
+            int first = local.get(at[i][0]); 
+            for (int k = 1; k < at[i].length; k++) union(parent, first, local.get(at[i][k])); 
+        }
+
+        // bucket constraints by root, in order of first appearance 
+        Map<Integer, ConstraintComponent> byRoot = new HashMap<>(); 
+        List<ConstraintComponent> result = new ArrayList<>(); 
+        for (int i = 0; i < n; i++) {
+            int root = find(parent, local.get(at[i][0])); 
+            ConstraintComponent comp = byRoot.get(root); 
+            if (comp == null) {
+                comp = new ConstraintComponent(); 
+                byRoot.put(root, comp); 
+                result.add(comp); 
+            }
+            comp.add(constraints.get(i), at[i]); 
+        }
+        return result; 
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];  // path halving 
+            i = parent[i]; 
+        }
+        return i; 
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b); 
+        if (ra == rb) return; 
+        // keep the smaller root so the structure is independent of union order 
+        if (ra < rb) parent[rb] = ra; 
+        else parent[ra] = rb; 
+    }
+}
@@ -1,26 +1,552 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * Junita Sirait - COS583
  * 
  * To manage constraints satisfaction through iterative process. 
+ * The solver works directly on the coordinate arrays of the PointStore. 
+ * 
+ * Two modes: RELAXATION lets each constraint move its own points in turn (the original Sketchpad 
+ * approach), NEWTON solves all coupled constraints together (see LevenbergMarquardtSolver). 
+ * 
+ * Constraints are first split into connected components (see ConstraintGraph). Components share 
+ * no points, so they are solved in parallel on a ForkJoinPool and each one stops as soon as it 
+ * is under tolerance. Since no two components write the same slots, the result is the same for 
+ * any number of threads. 
+ * 
+ * Relaxation has two schedules. SWEEP applies every constraint in order on every iteration. 
+ * WORKLIST keeps the constraints that are over tolerance in a ConstraintWorklist, always applies 
+ * the worst one next, and afterwards re-checks only the constraints on the points that apply moved, 
+ * so the satisfied parts of a component cost nothing once they have settled. Local repairs cannot 
+ * spread a large disturbance along a long chain of constraints the way full sweeps do (and can 
+ * leave it worse), so a component the worklist has not settled within WORKLIST_SWEEPS sweeps' 
+ * worth of work is put back as it was and solved with sweeps. Setting up the worklist (checking 
+ * every constraint, indexing constraints by point) costs a few sweeps, so it only pays off when a 
+ * local edit leaves a large component that SWEEP needs many sweeps to settle; where SWEEP settles 
+ * in a handful, or most of the component is off, SWEEP is faster. 
+ * 
+ * SWEEP and WORKLIST run a component on one thread. For one large rigid structure the other two 
+ * spread a sweep over the pool: the component's constraints are coloured so that constraints of 
+ * one colour share no point (see ConstraintComponent), and the colours are applied one after 
+ * another, each one in parallel. COLORED applies constraints in place, a Gauss-Seidel sweep in 
+ * colour order; on meshes and grids it needs about as many sweeps as SWEEP, but along a long 
+ * chain a sweep in chain order carries a correction all the way through while colour order 
+ * carries it a few links, and a disturbed chain may not settle within ITER_MAX. JACOBI lets every 
+ * constraint work from the positions at the start of the sweep and moves each point by the 
+ * average of what its constraints asked for; every constraint of a sweep is independent, but it 
+ * needs three to four times as many sweeps as SWEEP and stalls on disturbed chains more often, so 
+ * it is experimental. A component either one leaves unsettled is put back as it was and solved 
+ * with sweeps, like with WORKLIST. Both can only win where there are cores to spread the sweeps 
+ * over, and give the same result for any number of threads. Components under PARALLEL_MIN 
+ * constraints are swept as usual. 
+ * 
+ * Each pass reports to a SolverMetrics (wall time, iterations, convergence, per-type apply 
+ * timings), which costs nothing while the metrics are disabled. 
  */
 public class ConstraintSolverManager { 
+    public enum SolverMode {
+        RELAXATION, NEWTON
+    }
+
+    // order in which relaxation applies constraints; JACOBI is experimental (see above) 
+    public enum Schedule {
+        SWEEP, WORKLIST, COLORED, JACOBI
+    }
+
+    // lets a caller stop a long solve between iterations and observe its progress 
+    public interface SolveControl {
+        boolean isCancelled(); 
+        // called between iterations, possibly from several solver threads at once 
+        default void checkpoint() {} 
+
+        SolveControl NONE = () -> false; 
+    }
+
     private static final int ITER_MAX = 100; 
     private static final double TOLERANCE = 3;  
+    // components smaller than this are batched together into one task 
+    private static final int TASK_GRAIN = 256; 
+    // work the worklist schedule may spend on a component, in sweeps, before falling back to sweeps 
+    private static final int WORKLIST_SWEEPS = 4; 
+    // smallest component COLORED and JACOBI spread over threads 
+    private static final int PARALLEL_MIN = 4 * TASK_GRAIN; 
+
+    private SolverMode mode = SolverMode.RELAXATION; 
+    private Schedule schedule = Schedule.SWEEP; 
+    private final LevenbergMarquardtSolver newton = new LevenbergMarquardtSolver(); 
+    private final ForkJoinPool pool; 
+    private SolverMetrics metrics = SolverMetrics.shared(); 
+
+    public ConstraintSolverManager() {
+        this(ForkJoinPool.commonPool()); 
+    }
+
+    public ConstraintSolverManager(ForkJoinPool pool) {
+        this.pool = pool; 
+    }
+
+    public SolverMode getMode() { return this.mode; } 
+    public void setMode(SolverMode mode) { this.mode = mode; } 
+    public Schedule getSchedule() { return this.schedule; } 
+    public void setSchedule(Schedule schedule) { this.schedule = schedule; } 
+    public SolverMetrics getMetrics() { return this.metrics; } 
+    public void setMetrics(SolverMetrics metrics) { this.metrics = metrics; } 
+
+    // solve every constraint in the list 
+    public List<ConstraintComponent> solve(PointStore store, List<Constraint> constraints) {
+        return solveAll(store, ConstraintGraph.components(constraints)); 
+    }
+
+    // solve only the components of `graph` that contain a dirty point or constraint 
+    public List<ConstraintComponent> solveIncremental(PointStore store, ConstraintGraph graph, 
+            Collection<Integer> dirtyPoints, Collection<Constraint> dirtyConstraints) {
+        return solveAll(store, graph.affected(dirtyPoints, dirtyConstraints)); 
+    }
+
+    private List<ConstraintComponent> solveAll(PointStore store, List<ConstraintComponent> components) {
+        solveComponents(store.xs(), store.ys(), components, SolveControl.NONE); 
+        return components; 
+    }
+
+    // solve as much of the workspace as fits in `budgetNanos`, holding the pinned points fixed; 
+    // the workspace keeps the partial solution, so the next call continues from it 
+    public void solveWithin(SolveWorkspace workspace, boolean[] pinned, long budgetNanos) {
+        long deadline = System.nanoTime() + budgetNanos; 
+        solveComponents(workspace.xs(), workspace.ys(), workspace.components(), pinned, 
+                () -> System.nanoTime() - deadline > 0); 
+    }
+
+    // solve components whose slots index into xs/ys (either the store or a SolveWorkspace) 
+    public void solveComponents(double[] xs, double[] ys, List<ConstraintComponent> components, SolveControl control) {
+        solveComponents(xs, ys, components, null, control); 
+    }
+
+    // as above; points with pinned[slot] set (pinned may be null) are held fixed 
+    public void solveComponents(double[] xs, double[] ys, List<ConstraintComponent> components, 
+            boolean[] pinned, SolveControl control) {
+        SolverMetrics.Pass pass = metrics.start(mode); 
+        run(xs, ys, components, pinned, control, pass); 
+        metrics.finish(pass); 
+    }
+
+    private void run(double[] xs, double[] ys, List<ConstraintComponent> components, 
+            boolean[] pinned, SolveControl control, SolverMetrics.Pass pass) {
+        if (components.size() <= 1) {
+            for (ConstraintComponent comp : components) solveComponent(xs, ys, comp, pinned, control, pass); 
+            return; 
+        }
+        // one task per large component, small ones grouped up to TASK_GRAIN constraints 
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(); 
+        List<ConstraintComponent> batch = new ArrayList<>(); 
+        int batchSize = 0; 
+        for (ConstraintComponent comp : components) {
+            batch.add(comp); 
+            batchSize += comp.size(); 
+            if (batchSize >= TASK_GRAIN) {
+                tasks.add(batchTask(xs, ys, batch, pinned, control, pass)); 
+                batch = new ArrayList<>(); 
+                batchSize = 0; 
+            }
+        }
+        if (!batch.isEmpty()) tasks.add(batchTask(xs, ys, batch, pinned, control, pass)); 
+
+        pool.invoke(new RecursiveAction() {
+            @Override 
+            protected void compute() {
+                invokeAll(tasks); 
+            }
+        }); 
+    }
+
+    private ForkJoinTask<?> batchTask(double[] xs, double[] ys, List<ConstraintComponent> batch, 
+            boolean[] pinned, SolveControl control, SolverMetrics.Pass pass) {
+        return ForkJoinTask.adapt(() -> {
+            for (ConstraintComponent comp : batch) solveComponent(xs, ys, comp, pinned, control, pass); 
+        }); 
+    }
+
+    private void solveComponent(double[] xs, double[] ys, ConstraintComponent comp, boolean[] pinned, 
+            SolveControl control, SolverMetrics.Pass pass) {
+        if (control.isCancelled()) {
+            // not even checked: whatever a previous solve found no longer holds 
+            comp.iterations = 0; 
+            comp.worklistApplies = 0; 
+            comp.maxError = Double.POSITIVE_INFINITY; 
+            comp.converged = false; 
+            if (pass != null) pass.component(comp, ITER_MAX); 
+            return; 
+        }
+        comp.worklistApplies = 0; 
+        // nothing to do for a component that is already under tolerance; the worklist is seeded 
+        // from the same scan 
+        boolean worklist = mode == SolverMode.RELAXATION && schedule == Schedule.WORKLIST; 
+        double[] errors = worklist ? new double[comp.size()] : null; 
+        double error = maxResidual(xs, ys, comp, errors); 
+        if (error < TOLERANCE) {
+            comp.iterations = 0; 
+            comp.maxError = error; 
+            comp.converged = true; 
+        } else {
+            // per-type timings only when the metrics are on, not for a JFR-only pass 
+            SolverMetrics timing = pass != null && pass.timesApplies() ? metrics : null; 
+            if (mode == SolverMode.NEWTON) {
+                newton.solve(xs, ys, comp, ITER_MAX, TOLERANCE, pinned, control, timing); 
+            } else if (worklist) {
+                relaxWorklist(xs, ys, comp, errors, pinned, control, timing); 
+                // the points are back where they were, so the sweeps get their full ITER_MAX 
+                if (!comp.converged && !control.isCancelled()) relax(xs, ys, comp, pinned, control, timing); 
+
+            } else if ((schedule == Schedule.COLORED || schedule == Schedule.JACOBI) && comp.size() >= PARALLEL_MIN) {
+                relaxColored(xs, ys, comp, pinned, control, timing, schedule == Schedule.JACOBI); 
+                // as with the worklist, the points are back where they were 
+                if (!comp.converged && !control.isCancelled()) relax(xs, ys, comp, pinned, control, timing); 
+            } else {
+                relax(xs, ys, comp, pinned, control, timing); 
+            }
+        }
+        if (pass != null) pass.component(comp, ITER_MAX); 
+    }
+
+    private static boolean touchesPinned(int[] at, boolean[] pinned) {
+        for (int slot : at) if (pinned[slot]) return true; 
+        return false; 
+    }
+
+    // let the constraint move its points as usual, then put the pinned ones back; returns its error 
+    private static double applyPinned(Constraint c, double[] xs, double[] ys, int[] at, boolean[] pinned) {
+        double[] saved = new double[2 * at.length]; 
+        for (int k = 0; k < at.length; k++) {
+            saved[2*k] = xs[at[k]]; 
+            saved[2*k + 1] = ys[at[k]]; 
+        }
+        double error = c.apply(xs, ys, at); 
+        for (int k = 0; k < at.length; k++) {
+            if (!pinned[at[k]]) continue; 
+            xs[at[k]] = saved[2*k]; 
+            ys[at[k]] = saved[2*k + 1]; 
+        }
+        return error; 
+    }
+
+    private static double maxResidual(double[] xs, double[] ys, ConstraintComponent comp) {
+        return maxResidual(xs, ys, comp, null); 
+    }
+
+    // as above, also keeping each constraint's error in `errors` unless it is null 
+    private static double maxResidual(double[] xs, double[] ys, ConstraintComponent comp, double[] errors) {
+        List<Constraint> constraints = comp.constraints(); 
+        int[][] at = comp.slots(); 
+        double max = 0; 
+        for (int i = 0; i < at.length; i++) {
+            double error = residualError(constraints.get(i), xs, ys, at[i]); 
+            if (errors != null) errors[i] = error; 
+            max = Math.max(max, error); 
+        }
+        return max; 
+    }
+
+    // the constraint's current error in pixels, without moving anything 
+    private static double residualError(Constraint c, double[] xs, double[] ys, int[] at) {
+        double max = 0; 
+        for (int row = 0; row < c.residualCount(); row++) {
+            max = Math.max(max, Math.abs(c.residual(row, xs, ys, at))); 
+        }
+        return max; 
+    }
 
     // run relaxation until all constraints are under tolerance or we hit the iteration cap 
-    public void solve(List<Constraint> constraints) {
-        System.out.println("Number of constraints to be satisfied: " + constraints.size()); 
-        for (int iter = 0; iter < ITER_MAX; iter++ ) {
-            double maxError = 0; 
-            for (Constraint c : constraints) {
-                // System.out.println("constraint c: " + c); 
-                c.apply(); 
-                maxError = Math.max(maxError, c.error()); 
-            }
-            System.out.println("Iter " + iter + ", error: " + maxError);
-            if (maxError < TOLERANCE) break; 
+    private void relax(double[] xs, double[] ys, ConstraintComponent comp, boolean[] pinned, SolveControl control, 
+            SolverMetrics timing) {
+        List<Constraint> constraints = comp.constraints(); 
+        int[][] at = comp.slots(); 
+        // with no sweep at all the error is unknown 
+        double maxError = Double.POSITIVE_INFINITY; 
+        int iter = 0; 
+        // a cancelled sweep's error covers only part of the component, so it proves nothing 
+        boolean cancelled = false; 
+        while (iter < ITER_MAX) {
+            if (control.isCancelled()) {
+                cancelled = true; 
+                break; 
+            }
+            iter++; 
+            maxError = 0; 
+            for (int i = 0; i < at.length; i++) {
+                Constraint c = constraints.get(i); 
+                long t0 = timing != null ? System.nanoTime() : 0; 
+                double error = pinned != null && touchesPinned(at[i], pinned) 
+                        ? applyPinned(c, xs, ys, at[i], pinned) : c.apply(xs, ys, at[i]); 
+                if (timing != null) timing.applied(c, System.nanoTime() - t0); 
+                maxError = Math.max(maxError, error); 
+                // a single sweep over a large component can outlast a frame budget 
+                if ((i & 255) == 255 && control.isCancelled()) {
+                    cancelled = true; 
+                    break; 
+                }
+            }
+            if (cancelled || maxError < TOLERANCE) break; 
+            control.checkpoint(); 
+        }
+        comp.iterations = iter; 
+        comp.maxError = maxError; 
+        comp.converged = !cancelled && maxError < TOLERANCE; 
+    }
+
+    // relaxation driven by worklists: apply the worst constraint, then re-check only the 
+    // constraints on points it moved. Work goes in rounds -- a constraint disturbed after it was 
+    // applied waits for the next round -- so two neighbours cannot hand the worst error back and 
+    // forth forever. A constraint that moves nothing (its points are pinned) drops out until a 
+    // neighbour moves one of them. Work is capped at WORKLIST_SWEEPS sweeps' worth of applies; if 
+    // that does not settle the component, its points are restored (unless the solve was cancelled, 
+    // then the partial result is kept like any other). `iterations` reports the sweeps' worth used, 
+    // `worklistApplies` the applies. `errors` holds every constraint's current error 
+    private void relaxWorklist(double[] xs, double[] ys, ConstraintComponent comp, double[] errors, 
+            boolean[] pinned, SolveControl control, SolverMetrics timing) {
+        List<Constraint> constraints = comp.constraints(); 
+        int[][] at = comp.slots(); 
+        int n = at.length; 
+        ConstraintWorklist round = new ConstraintWorklist(n); 
+        ConstraintWorklist next = new ConstraintWorklist(n); 
+        int widest = 0; 
+        for (int i = 0; i < n; i++) {
+            if (errors[i] >= TOLERANCE) round.update(i, errors[i]); 
+            widest = Math.max(widest, at[i].length); 
+        }
+
+        int[] points = comp.pointSlots(); 
+        double[] saved = new double[2 * points.length]; 
+        for (int k = 0; k < points.length; k++) {
+            saved[2*k] = xs[points[k]]; 
+            saved[2*k + 1] = ys[points[k]]; 
+        }
+
+        double[] before = new double[2 * widest]; 
+        // stamp[j] == applies when j has already been re-checked after this apply 
+        long[] stamp = new long[n]; 
+        Arrays.fill(stamp, -1); 
+        long budget = (long) WORKLIST_SWEEPS * n; 
+        long applies = 0; 
+        boolean cancelled = false; 
+        while (!round.isEmpty() && applies < budget && !cancelled) {
+            while (!round.isEmpty() && applies < budget) {
+                int i = round.poll(); 
+                Constraint c = constraints.get(i); 
+                int[] a = at[i]; 
+                for (int k = 0; k < a.length; k++) {
+                    before[2*k] = xs[a[k]]; 
+                    before[2*k + 1] = ys[a[k]]; 
+                }
+                long t0 = timing != null ? System.nanoTime() : 0; 
+                if (pinned != null && touchesPinned(a, pinned)) {
+                    applyPinned(c, xs, ys, a, pinned); 
+                } else {
+                    c.apply(xs, ys, a); 
+                }
+                if (timing != null) timing.applied(c, System.nanoTime() - t0); 
+
+                for (int k = 0; k < a.length; k++) {
+                    if (xs[a[k]] == before[2*k] && ys[a[k]] == before[2*k + 1]) continue; 
+                    for (int j : comp.constraintsAt(a[k])) {
+                        if (stamp[j] == applies) continue; 
+                        stamp[j] = applies; 
+                        // still waiting in this round: just re-rank it 
+                        ConstraintWorklist list = round.contains(j) ? round : next; 
+                        double error = residualError(constraints.get(j), xs, ys, at[j]); 
+                        if (error >= TOLERANCE) list.update(j, error); 
+                        else list.remove(j); 
+                    }
+                }
+                applies++; 
+                if ((applies & 255) == 0 && control.isCancelled()) {
+                    cancelled = true; 
+                    break; 
+                }
+            }
+            ConstraintWorklist done = round; 
+            round = next; 
+            next = done; 
+            control.checkpoint(); 
+        }
+        comp.iterations = (int) ((applies + n - 1) / n); 
+        comp.worklistApplies = applies; 
+        // also sees constraints that left the lists without getting under tolerance 
+        comp.maxError = maxResidual(xs, ys, comp); 
+        comp.converged = comp.maxError < TOLERANCE; 
+        if (!comp.converged && !cancelled) {
+            for (int k = 0; k < points.length; k++) {
+                xs[points[k]] = saved[2*k]; 
+                ys[points[k]] = saved[2*k + 1]; 
+            }
+        }
+    }
+
+    // relaxation with each colour class applied in parallel; one iteration applies every colour in 
+    // turn. With `jacobi` nothing is written during the colours: each constraint is applied to a 
+    // copy of its points, the moves are summed per point (points of one colour are distinct, so 
+    // the sums need no locking) and every point then moves by the average. A component that is not 
+    // settled within ITER_MAX is restored like in relaxWorklist (unless cancelled) 
+    private void relaxColored(double[] xs, double[] ys, ConstraintComponent comp, boolean[] pinned, 
+            SolveControl control, SolverMetrics timing, boolean jacobi) {
+        List<Constraint> constraints = comp.constraints(); 
+        int[][] at = comp.slots(); 
+        int[][] classes = comp.colorClasses(); 
+
+        int[] points = comp.pointSlots(); 
+        double[] saved = new double[2 * points.length]; 
+        for (int k = 0; k < points.length; k++) {
+            saved[2*k] = xs[points[k]]; 
+            saved[2*k + 1] = ys[points[k]]; 
+        }
+        int[][] local = null; 
+        double[] sumX = null, sumY = null; 
+        int[] moves = null; 
+        if (jacobi) {
+            // operands as positions in `points`, where the sums are kept 
+            local = new int[at.length][]; 
+            for (int i = 0; i < at.length; i++) {
+                local[i] = new int[at[i].length]; 
+                for (int k = 0; k < at[i].length; k++) local[i][k] = Arrays.binarySearch(points, at[i][k]); 
+            }
+            sumX = new double[points.length]; 
+            sumY = new double[points.length]; 
+            moves = new int[points.length]; 
+        }
+
+        double maxError = Double.POSITIVE_INFINITY; 
+        int iter = 0; 
+        // as in relax, a cancelled sweep has not seen every constraint 
+        boolean cancelled = false; 
+        while (iter < ITER_MAX) {
+            if (control.isCancelled()) {
+                cancelled = true; 
+                break; 
+            }
+            iter++; 
+            maxError = 0; 
+            for (int[] members : classes) {
+                final int[][] operands = local; 
+                final double[] dx = sumX, dy = sumY; 
+                final int[] count = moves; 
+                double error = parallelMax(members.length, (from, to) -> jacobi 
+                        ? applyJacobi(xs, ys, constraints, at, operands, members, from, to, dx, dy, count, timing) 
+                        : applyInPlace(xs, ys, constraints, at, members, from, to, pinned, timing)); 
+                maxError = Math.max(maxError, error); 
+                if (control.isCancelled()) {
+                    cancelled = true; 
+                    break; 
+                }
+            }
+            if (jacobi) {
+                for (int k = 0; k < points.length; k++) {
+                    if (moves[k] == 0) continue; 
+                    if (pinned == null || !pinned[points[k]]) {
+                        xs[points[k]] += sumX[k] / moves[k]; 
+                        ys[points[k]] += sumY[k] / moves[k]; 
+                    }
+                    sumX[k] = 0; 
+                    sumY[k] = 0; 
+                    moves[k] = 0; 
+                }
+            }
+            if (cancelled || maxError < TOLERANCE) break; 
+            control.checkpoint(); 
+        }
+        comp.iterations = iter; 
+        comp.maxError = maxError; 
+        comp.converged = !cancelled && maxError < TOLERANCE; 
+        if (!comp.converged && !cancelled) {
+            for (int k = 0; k < points.length; k++) {
+                xs[points[k]] = saved[2*k]; 
+                ys[points[k]] = saved[2*k + 1]; 
+            }
+        }
+    }
+
+    // apply members[from, to) where they are; returns the largest error seen 
+    private static double applyInPlace(double[] xs, double[] ys, List<Constraint> constraints, int[][] at, 
+            int[] members, int from, int to, boolean[] pinned, SolverMetrics timing) {
+        double max = 0; 
+        for (int m = from; m < to; m++) {
+            int i = members[m]; 
+            Constraint c = constraints.get(i); 
+            long t0 = timing != null ? System.nanoTime() : 0; 
+            double error = pinned != null && touchesPinned(at[i], pinned) 
+                    ? applyPinned(c, xs, ys, at[i], pinned) : c.apply(xs, ys, at[i]); 
+            if (timing != null) timing.applied(c, System.nanoTime() - t0); 
+            max = Math.max(max, error); 
+        }
+        return max; 
+    }
+
+    // apply members[from, to) to copies of their points and add the moves to the per-point sums 
+    private static double applyJacobi(double[] xs, double[] ys, List<Constraint> constraints, int[][] at, 
+            int[][] local, int[] members, int from, int to, double[] sumX, double[] sumY, int[] moves, 
+            SolverMetrics timing) {
+        double max = 0; 
+        double[] cx = new double[0], cy = new double[0]; 
+        int[] own = new int[0]; 
+        for (int m = from; m < to; m++) {
+            int i = members[m]; 
+            Constraint c = constraints.get(i); 
+            int[] a = at[i]; 
+            if (own.length != a.length) {
+                cx = new double[a.length]; 
+                cy = new double[a.length]; 
+                own = new int[a.length]; 
+                for (int k = 0; k < own.length; k++) own[k] = k; 
+            }
+            for (int k = 0; k < a.length; k++) {
+                cx[k] = xs[a[k]]; 
+                cy[k] = ys[a[k]]; 
+            }
+            long t0 = timing != null ? System.nanoTime() : 0; 
+            double error = c.apply(cx, cy, own); 
+            if (timing != null) timing.applied(c, System.nanoTime() - t0); 
+            max = Math.max(max, error); 
+            for (int k = 0; k < a.length; k++) {
+                int p = local[i][k]; 
+                sumX[p] += cx[k] - xs[a[k]]; 
+                sumY[p] += cy[k] - ys[a[k]]; 
+                moves[p]++; 
+            }
+        }
+        return max; 
+    }
+
+    // one chunk of a colour class: applies constraints members[from, to) and returns the largest error 
+    private interface Chunk {
+        double run(int from, int to); 
+    }
+
+    // run `chunk` over [0, n) in pieces of TASK_GRAIN on the pool, and wait for all of them 
+    private double parallelMax(int n, Chunk chunk) {
+        int pieces = (n + TASK_GRAIN - 1) / TASK_GRAIN; 
+        if (pieces <= 1) return chunk.run(0, n); 
+        double[] max = new double[pieces]; 
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(pieces); 
+        for (int p = 0; p < pieces; p++) {
+            int piece = p, from = p * TASK_GRAIN, to = Math.min(n, from + TASK_GRAIN); 
+            tasks.add(ForkJoinTask.adapt(() -> max[piece] = chunk.run(from, to))); 
+        }
+        if (ForkJoinTask.getPool() == pool) {
+            // already one of the pool's workers (solving one of several components) 
+            ForkJoinTask.invokeAll(tasks); 
+        } else {
+            pool.invoke(new RecursiveAction() {
+                @Override 
+                protected void compute() {
+                    invokeAll(tasks); 
+                }
+            }); 
         }
+        double result = 0; 
+        for (double m : max) result = Math.max(result, m); 
+        return result; 
     }
 }
@@ -0,0 +1,95 @@
+import java.util.Arrays;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * The constraints of one component that are still over tolerance, worst first. An indexed binary
+ * max-heap over constraint positions 0..n-1 keyed by error: a constraint is in it at most once,
+ * and its key can be raised, lowered or dropped in O(log n) when one of its points moves, so the
+ * relaxation solver never touches the constraints that are already satisfied.
+ */
+public class ConstraintWorklist {
+    private final int[] heap;      // heap position -> constraint
+    private final int[] position;  // constraint -> heap position, or -1 when not queued
+    private final double[] key;
+    private int size = 0;
+
+    public ConstraintWorklist(int constraints) {
+        this.heap = new int[constraints];
+        this.position = new int[constraints];
+        this.key = new double[constraints];
+        Arrays.fill(position, -1);
+    }
+
+    public boolean isEmpty() { return size == 0; }
+    public int size() { return size; }
+    public boolean contains(int c) { return position[c] >= 0; }
+
+    // the largest error queued; only valid when not empty
+    public double maxError() { return key[heap[0]]; }
+
+    // queue constraint `c` with `error`, or move it to where `error` puts it if already queued
+    public void update(int c, double error) {
+        int at = position[c];
+        if (at < 0) {
+            key[c] = error;
+            heap[size] = c;
+            position[c] = size;
+            up(size++);
+            return;
+        }
+        double old = key[c];
+        key[c] = error;
+        if (error > old) up(at);
+        else down(at);
+    }
+
+    public void remove(int c) {
+        int at = position[c];
+        if (at < 0) return;
+        position[c] = -1;
+        int last = heap[--size];
+        if (at == size) return;
+        heap[at] = last;
+        position[last] = at;
+        // the moved entry can belong above or below `at`
+        up(at);
+        down(position[last]);
+    }
+
+    // take out the constraint with the largest error, or -1 when empty
+    public int poll() {
+        if (size == 0) return -1;
+        int top = heap[0];
+        remove(top);
+        return top;
+    }
+
+    private void up(int at) {
+        int c = heap[at];
+        while (at > 0) {
+            int parent = (at - 1) >>> 1;
+            if (key[heap[parent]] >= key[c]) break;
+            heap[at] = heap[parent];
+            position[heap[at]] = at;
+            at = parent;
+        }
+        heap[at] = c;
+        position[c] = at;
+    }
+
+    private void down(int at) {
+        int c = heap[at];
+        while (true) {
+            int child = 2*at + 1;
+            if (child >= size) break;
+            if (child + 1 < size && key[heap[child + 1]] > key[heap[child]]) child++;
+            if (key[heap[child]] <= key[c]) break;
+            heap[at] = heap[child];
+            position[heap[at]] = at;
+            at = child;
+        }
+        heap[at] = c;
+        position[c] = at;
+    }
+}
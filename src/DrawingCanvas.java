@@ -1,11 +1,11 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.function.LongSupplier;
 
 
 /**
@@ -14,9 +14,13 @@ import java.util.HashSet;
  * Drawing canvas with rules of what happens when user clicks on buttons, clicks on any drawn objects, 
  * and interacts with mouse. 
  * 
- * TODO: refactor
+ * The drawing itself lives in a SketchEngine; the canvas turns mouse input into engine edits and 
+ * redraws whatever the engine reports as changed. 
+ * 
+ * Every mouse event is stamped with System.nanoTime when it arrives; InputLatency matches it to 
+ * the paint that shows it (see there). 
  */
-public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionListener {
+public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionListener, MouseWheelListener {
     public enum Mode {
         NONE, POINT, LINE, ARC, DELETE, 
         EQUAL_LENGTH, PARALLEL, PERPENDICULAR, 
@@ -26,15 +30,39 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
 
     private Mode currentMode = Mode.NONE;
 
-    private final ConstraintSolverManager solverManager = new ConstraintSolverManager(); 
-    private final List<Constraint> constraints = new ArrayList<>(); 
+    // the drawing: objects, constraints, hit-testing, merging and solving 
+    private final SketchEngine engine = new SketchEngine(); 
+    // solves run on a background thread and repaint when they publish 
+    private final AsyncSolver asyncSolver = new AsyncSolver(engine.getSolverManager(), engine.getPointStore(), 
+                                                            engine.getConstraintGraph(), this::solvePublished); 
+    private boolean asyncSolving = true; 
     private final List<LineObject> pendingLines = new ArrayList<>(); 
 
-    
-    private List<GeometricObject> objects = new ArrayList<>();
+    // committed geometry grouped into a few paths per tile for drawing 
+    private final RenderBatches batches = new RenderBatches(); 
 
-    // zooming 
+    // zooming and panning: a drawing point (x, y) is shown at (x*scale + panX, y*scale + panY), 
+    // and scale is always TileCache.ZOOM_STEP^zoomLevel so rendered tiles can be reused 
+    private int zoomLevel = 0; 
     private double scale = 1.0; 
+    private int panX = 0, panY = 0; 
+    // fractional wheel rotation not yet turned into a zoom step (for smooth-scrolling wheels) 
+    private double wheelRotation = 0; 
+    // right or middle button drag pans the view 
+    private boolean panning = false; 
+    private int panStartX, panStartY; 
+
+    // union of the drawing-coordinate bounds changed since the last repaint request; only this 
+    // region is repainted instead of the whole canvas 
+    private Rectangle2D dirtyRegion = null; 
+    // device pixels added around a dirty region to cover stroke width and antialiasing 
+    private static final int REPAINT_PAD = 3; 
+
+    // committed geometry is rendered into cached tiles and copied to the screen; edits mark the 
+    // tiles under them for re-rendering. the rubber band, arc preview and pending-line highlights 
+    // are drawn over the tiles on every paint 
+    private final TileCache tileCache = new TileCache(batches, this::tileReady); 
+    private static final Color PENDING_COLOR = new Color(30, 120, 255); 
 
     // make drawing a line be like dragging a rubber band 
     private int startX, startY; 
@@ -42,14 +70,31 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     private PointObject currentStartPoint = null;  // for a line 
     private boolean isDragging = false; 
 
-    // field to hold the selected point for dragging 
-    private PointObject selectedPoint = null; 
+    // live drag: constraints of the dragged point's component are solved on every drag event, 
+    // within a time budget, holding the dragged point where the mouse is 
+    private boolean liveDrag = true; 
 
     // flick detection 
     private int lastX, lastY; 
-    private long lastTime;  // in milliseconds 
+    private long lastTime;  // in nanoseconds 
     // threshold speed in pixels per milliseconds 
     private static final double FLICK_THRESHOLD = 3.0; 
+    // speed is measured over at least this long, so two events arriving almost together (which 
+    // the old millisecond clock could not tell apart) don't look like a flick 
+    private static final long FLICK_MIN_INTERVAL = 1_000_000L; 
+
+    // latency tracing: when the event being handled arrived, and whether its handler asked for 
+    // a repaint 
+    private final InputLatency latency = InputLatency.shared(); 
+    private long eventTime; 
+    private boolean repaintRequested = false; 
+    // when the background solve in flight was requested (0 when none) 
+    private long solveRequestedAt = 0; 
+
+    // session recording (see SessionRecorder), and where event times come from: null for 
+    // System.nanoTime, the recorded times when a session is replayed 
+    private SessionRecorder recorder = null; 
+    private LongSupplier clock = null; 
 
     // for arc draw 
     // arc stage defined 
@@ -66,11 +111,44 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     public DrawingCanvas() {
         addMouseListener(this);
         addMouseMotionListener(this);
+        addMouseWheelListener(this);
+        engine.setListener(new SketchEngine.Listener() {
+            @Override 
+            public void added(GeometricObject obj) {
+                batches.add(obj); 
+                markDirty(obj.getBounds()); 
+            }
+
+            @Override 
+            public void removed(GeometricObject obj) {
+                batches.remove(obj); 
+                markDirty(obj.getBounds()); 
+                pendingLines.removeIf(l -> l == obj); 
+            }
+
+            // repaint where the object was and where it is now 
+            @Override 
+            public void changing(GeometricObject obj) {
+                markDirty(obj.getBounds()); 
+            }
+
+            @Override 
+            public void changed(GeometricObject obj) {
+                batches.update(obj); 
+                markDirty(obj.getBounds()); 
+            }
+        }); 
     }
 
+    public SketchEngine getEngine() { return this.engine; }
+
+    // true while tiles are still being rendered in the background 
+    public boolean isRenderPending() { return tileCache.pending() > 0; }
+
     public Mode getMode() { return this.currentMode; }
     
     public void setMode(Mode mode) { 
+        if (recorder != null) recorder.mode(mode, now()); 
         // commit constraint after the second click
         if (Arrays.asList(
                     Mode.EQUAL_LENGTH, Mode.PARALLEL, Mode.PERPENDICULAR, 
@@ -86,107 +164,237 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
     } 
 
     public void commitConstraint(Mode mode) {
-        // choose which constraint to build 
+        // choose which constraint to build; more than two lines become one group constraint 
+        // instead of a constraint for every pair 
         switch (mode) {
             case EQUAL_LENGTH: 
                 // System.out.println("***adding to EQUAL LENGTH constraint***");
+                if (pendingLines.size() > 2) {
+                    engine.addConstraint(new EqualLengthGroupConstraint(pendingLines)); 
+                    break; 
+                }
                 for (int i = 0; i < pendingLines.size(); i++) {
                     for (int j = i+1; j < pendingLines.size(); j++) {
                         LineObject line1 = pendingLines.get(i);
                         LineObject line2 = pendingLines.get(j);
                         if (line1.equals(line2)) continue; 
-                        constraints.add(new EqualLengthConstraint(line1, line2)); 
+                        engine.addConstraint(new EqualLengthConstraint(line1, line2)); 
                     }
                 }
                 break; 
             case PARALLEL:
+                if (pendingLines.size() > 2) {
+                    engine.addConstraint(new ParallelGroupConstraint(pendingLines)); 
+                    break; 
+                }
                 for (int i = 0; i < pendingLines.size(); i++) {
                     for (int j = i+1; j < pendingLines.size(); j++) {
                         LineObject line1 = pendingLines.get(i);
                         LineObject line2 = pendingLines.get(j);
                         if (line1.equals(line2)) continue; 
-                        constraints.add(new ParallelLineConstraint(line1, line2)); 
+                        engine.addConstraint(new ParallelLineConstraint(line1, line2)); 
                     }
                 }
                 break; 
             case PERPENDICULAR:
+                // stays pairwise: more than two lines cannot all be perpendicular to each other 
                 for (int i = 0; i < pendingLines.size(); i++) {
                     for (int j = i+1; j < pendingLines.size(); j++) {
                         LineObject line1 = pendingLines.get(i);
                         LineObject line2 = pendingLines.get(j);
                         if (line1.equals(line2)) continue; 
-                        constraints.add(new PerpendicularLineConstraint(line1, line2)); 
+                        engine.addConstraint(new PerpendicularLineConstraint(line1, line2)); 
                     }
                 }
                 break; 
             case HORIZONTAL:
                 for (LineObject line : pendingLines) {
-                    constraints.add(new HorizontalConstraint(line));
+                    engine.addConstraint(new HorizontalConstraint(line));
                 }
                 break; 
             case VERTICAL:
                 for (LineObject line : pendingLines) {
-                    constraints.add(new VerticalConstraint(line));
+                    engine.addConstraint(new VerticalConstraint(line));
                 }
                 break; 
             default: 
                 break; 
         }
-        solverManager.solve(constraints); 
-        repaint(); 
+        solveConstraints(); 
+        for (LineObject line : pendingLines) markOverlayDirty(line.getBounds()); 
         pendingLines.clear(); 
+        flushDirty(); 
     }
 
+    // re-solve only the parts of the drawing touched since the last solve 
     public void solveConstraints() {
-        this.solverManager.solve(constraints); 
-        repaint(); 
+        if (asyncSolving) {
+            // the result is published (and repainted) from the solver thread 
+            if (!asyncSolver.isBusy()) solveRequestedAt = System.nanoTime(); 
+            asyncSolver.request(engine.getDirtyPoints(), engine.getDirtyConstraints()); 
+            engine.clearDirty(); 
+        } else {
+            long start = System.nanoTime(); 
+            engine.solve(); 
+            latency.solved(System.nanoTime() - start); 
+            flushDirty(); 
+        }
     }
 
-    public void zoomIn()  { scale *= 1.1;  repaint(); } 
-    public void zoomOut()  { scale /= 1.1; repaint(); }
+    // the async solver has new coordinates for the workspace's points 
+    private void solvePublished(SolveWorkspace workspace, double[] xs, double[] ys) {
+        engine.applySolved(workspace, xs, ys); 
+        flushDirty(); 
+        // the final result, not a checkpoint 
+        if (!asyncSolver.isBusy() && solveRequestedAt != 0) {
+            latency.solved(System.nanoTime() - solveRequestedAt); 
+            solveRequestedAt = 0; 
+        }
+    }
 
     /** 
-    * POINT
-    */ 
-    private void cleanupLeftoverPoints() {
-        // create a set of points that are used by any line 
-        Set <PointObject> usedPoints = new HashSet<>(); 
-        for (GeometricObject obj : objects) {
-            if (obj instanceof LineObject) {
-                LineObject line = (LineObject) obj; 
-                usedPoints.add(line.getStartPoint()); 
-                usedPoints.add(line.getEndPoint()); 
-            }
-        } 
-        // remove points that are not used by any line 
-        objects.removeIf(obj -> (obj instanceof PointObject) && !usedPoints.contains((obj))); 
+     * REPAINTING 
+     */
+    // committed geometry changed inside r 
+    private void markDirty(Rectangle2D r) {
+        tileCache.invalidate(r); 
+        markOverlayDirty(r); 
+    }
+
+    // only transient feedback changed inside r; the geometry layer stays as it is 
+    private void markOverlayDirty(Rectangle2D r) {
+        dirtyRegion = union(dirtyRegion, r); 
+    }
+
+    private static Rectangle2D union(Rectangle2D acc, Rectangle2D r) {
+        if (acc == null) return new Rectangle2D.Double(r.getX(), r.getY(), r.getWidth(), r.getHeight()); 
+        acc.add(r); 
+        return acc; 
+    }
+
+    // a tile finished rendering; `area` is in the pixel grid of its zoom level 
+    private void tileReady(int level, Rectangle area) {
+        if (level == zoomLevel) repaint(area.x + panX, area.y + panY, area.width, area.height); 
+    }
+
+    // every repaint() and repaint(Rectangle) ends up here 
+    @Override 
+    public void repaint(long tm, int x, int y, int width, int height) {
+        repaintRequested = true; 
+        super.repaint(tm, x, y, width, height); 
+    }
+
+    // repaint only the accumulated dirty region 
+    private void flushDirty() {
+        if (dirtyRegion == null) return; 
+        repaint(toDevice(dirtyRegion)); 
+        dirtyRegion = null; 
+    }
+
+    private Rectangle toDevice(Rectangle2D r) {
+        int x0 = (int) Math.floor(r.getMinX() * scale) + panX - REPAINT_PAD; 
+        int y0 = (int) Math.floor(r.getMinY() * scale) + panY - REPAINT_PAD; 
+        int x1 = (int) Math.ceil(r.getMaxX() * scale) + panX + REPAINT_PAD; 
+        int y1 = (int) Math.ceil(r.getMaxY() * scale) + panY + REPAINT_PAD; 
+        return new Rectangle(x0, y0, x1 - x0, y1 - y0); 
+    }
+
+    // the gray rubber band segment 
+    private Rectangle2D rubberBandBounds() {
+        return new Rectangle2D.Double(Math.min(startX, currentX), Math.min(startY, currentY), 
+                                      Math.abs(currentX - startX), Math.abs(currentY - startY)); 
+    }
+
+    // the circle the temporary arc (or its center dot) is drawn on 
+    private Rectangle2D arcPreviewBounds() {
+        int r = arcStage == 2 ? arcRadius : 3; 
+        return new Rectangle2D.Double(arcCenterX - r, arcCenterY - r, 2*r, 2*r); 
+    }
+
+    // when false, solves run synchronously on the calling thread (e.g. for headless use) 
+    public void setAsyncSolving(boolean async) { 
+        if (!async) asyncSolver.cancel(); 
+        this.asyncSolving = async; 
+    } 
+
+    public ConstraintSolverManager.SolverMode getSolverMode() { return engine.getSolverManager().getMode(); } 
+    public void setSolverMode(ConstraintSolverManager.SolverMode mode) { 
+        if (recorder != null) recorder.solver(mode, now()); 
+        engine.getSolverManager().setMode(mode); 
+    } 
+
+    public boolean isLiveDrag() { return this.liveDrag; } 
+    public void setLiveDrag(boolean liveDrag) { 
+        if (recorder != null) recorder.liveDrag(liveDrag, now()); 
+        this.liveDrag = liveDrag; 
+    } 
+
+    // record everything done on the canvas from now on; null stops recording 
+    public void setRecorder(SessionRecorder recorder) { this.recorder = recorder; } 
+    // take event times (for flick detection) from `clock` instead of System.nanoTime 
+    public void setEventClock(LongSupplier clock) { this.clock = clock; } 
+
+    private long now() { return clock == null ? System.nanoTime() : clock.getAsLong(); } 
+
+    public void zoomIn()  { zoomAbout(zoomLevel + 1, getWidth() / 2, getHeight() / 2); } 
+    public void zoomOut()  { zoomAbout(zoomLevel - 1, getWidth() / 2, getHeight() / 2); }
+
+    public double getScale() { return this.scale; } 
+
+    // the largest zoom level that shows all of r (drawing coordinates), centered 
+    public void zoomToFit(Rectangle2D r) {
+        if (getWidth() <= 0 || getHeight() <= 0 || r.isEmpty()) return; 
+        int level = 0; 
+        while (r.getWidth() * TileCache.scaleOf(level) > getWidth() || r.getHeight() * TileCache.scaleOf(level) > getHeight()) level--; 
+        while (r.getWidth() * TileCache.scaleOf(level + 1) <= getWidth() && r.getHeight() * TileCache.scaleOf(level + 1) <= getHeight()) level++; 
+        zoomLevel = level; 
+        scale = TileCache.scaleOf(level); 
+        panX = (int) Math.round(getWidth() / 2.0 - r.getCenterX() * scale); 
+        panY = (int) Math.round(getHeight() / 2.0 - r.getCenterY() * scale); 
+        repaint(); 
+    }
+
+    // change the zoom level keeping the drawing point under device pixel (ax, ay) in place 
+    private void zoomAbout(int level, int ax, int ay) {
+        double mx = (ax - panX) / scale, my = (ay - panY) / scale; 
+        zoomLevel = level; 
+        scale = TileCache.scaleOf(level); 
+        panX = (int) Math.round(ax - mx * scale); 
+        panY = (int) Math.round(ay - my * scale); 
+        repaint(); 
     }
 
+    // mouse position in drawing coordinates 
+    private int modelX(MouseEvent e) { return (int) Math.floor((e.getX() - panX) / scale); } 
+    private int modelY(MouseEvent e) { return (int) Math.floor((e.getY() - panY) / scale); } 
+
     /** 
      * LINE 
      */
     private void updateRubberBand(MouseEvent e) {
         if (currentMode == Mode.LINE && isDragging) {
-            int x = (int) (e.getX() / scale); 
-            int y = (int) (e.getY() / scale); 
+            markOverlayDirty(rubberBandBounds()); 
+            int x = modelX(e); 
+            int y = modelY(e); 
             currentX = x;
             currentY = y; 
-            long currentTime =  System.currentTimeMillis(); 
+            long currentTime = eventTime; 
             long dt = currentTime - lastTime; 
-            if (dt > 0) {
+            if (dt >= FLICK_MIN_INTERVAL) {
                 double dx = currentX - lastX; 
                 double dy = currentY - lastY; 
                 double distance = Math.sqrt(dx*dx + dy*dy); 
-                double speed = distance / dt;  // speed in pixels per millisec 
+                double speed = distance / (dt / 1e6);  // speed in pixels per millisec 
                 if (speed > FLICK_THRESHOLD) {
                     finalizeLine(); 
                     return; 
                 }
+                lastX = currentX; 
+                lastY = currentY; 
+                lastTime = currentTime; 
             }
-            lastX = currentX; 
-            lastY = currentY; 
-            lastTime = currentTime; 
-            repaint(); 
+            markOverlayDirty(rubberBandBounds()); 
+            flushDirty(); 
         }
     } 
 
@@ -196,25 +404,19 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         // and try to find an existing point for the end 
         PointObject endPt = findNearbyPoint(currentX, currentY); 
         if (endPt == null) {
-            endPt = new PointObject(currentX, currentY); 
-            objects.add(endPt); 
+            endPt = engine.addPoint(currentX, currentY); 
         }
         // create the line using the shared currentStartPoint and the endPt 
-        objects.add(new LineObject(currentStartPoint, endPt)); 
+        engine.addLine(currentStartPoint, endPt); 
         isDragging = false; 
-        repaint(); 
+        markOverlayDirty(rubberBandBounds()); 
+        flushDirty(); 
         System.out.println("Line is finalized from (" + startX + ", " + startY + ") to (" + currentX + ", " + currentY + ")");
     } 
 
     private PointObject findNearbyPoint(int x, int y) {
-        // look through all objects for a point close to (x,y) 
-        for (GeometricObject obj : objects) {
-            if (obj instanceof PointObject) {
-                PointObject pt = (PointObject) obj; 
-                if (pt.contains(x,y))  { return pt; }
-            }
-        } 
-        return null; 
+        // look up the grid cells around (x,y) for a point close to it 
+        return engine.findPoint(x, y); 
     } 
 
     /** 
@@ -222,8 +424,8 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
      */
     private void updateArcRubberBand(MouseEvent e) {
         if (currentMode == Mode.ARC && arcStage == 2 && isDragging) { 
-            int x = (int) (e.getX() / scale); 
-            int y = (int) (e.getY() / scale); 
+            int x = modelX(e); 
+            int y = modelY(e); 
             currentX = x; 
             currentY = y; 
             // compute current angle from center to current mouse position 
@@ -262,7 +464,8 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
             // lastTime = currentTime; 
 
             arcSweepAngle = accumulatedSweepAngle; 
-            repaint(); 
+            markOverlayDirty(arcPreviewBounds()); 
+            flushDirty(); 
         }
     }
     
@@ -271,77 +474,32 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
         int x = arcCenterX - arcRadius; 
         int y = arcCenterY - arcRadius; 
         int diameter = arcRadius*2; 
-        objects.add(new ArcObject(x, y, diameter, diameter, (int)arcStartAngle, (int)arcSweepAngle)); 
+        engine.add(new ArcObject(x, y, diameter, diameter, (int)arcStartAngle, (int)arcSweepAngle)); 
+        markOverlayDirty(arcPreviewBounds()); 
         isDragging = false; 
         arcStage = 0; 
         previousAngle = null; 
         accumulatedSweepAngle = 0; 
-        repaint(); 
+        flushDirty(); 
         System.out.println("arc drawn"); 
     }
 
-    /**
-     * Merges points that are extremely close together (within a threshold).
-     * After merging, all lines that referenced the removed point are updated.
-     * Also updates the constraint solver by removing the merged point.
-     */
-    private void mergeClosePoints() {
-        final double mergeThreshold = 5.0; // in pixels
-        
-        // gather all PointObjects
-        List<PointObject> points = new ArrayList<>();
-        for (GeometricObject obj : objects) {
-            if (obj instanceof PointObject) {
-                points.add((PointObject) obj);
-            }
-        }
-        
-        for (int i = 0; i < points.size(); i++) {
-            PointObject p1 = points.get(i);
-            for (int j = i + 1; j < points.size(); j++) {
-                PointObject p2 = points.get(j);
-                double dx = p1.getX() - p2.getX();
-                double dy = p1.getY() - p2.getY();
-                if (Math.hypot(dx, dy) < mergeThreshold) {
-                    // Merge p2 into p1 by averaging positions.
-                    int avgX = (p1.getX() + p2.getX()) / 2;
-                    int avgY = (p1.getY() + p2.getY()) / 2;
-                    p1.setX(avgX);
-                    p1.setY(avgY);
-                    
-                    // update all LineObjects that reference p2
-                    for (GeometricObject obj : objects) {
-                        if (obj instanceof LineObject) {
-                            LineObject line = (LineObject) obj;
-                            if (line.getStartPoint().equals(p2)) {
-                                line.setStartPoint(p1);
-                            }
-                            if (line.getEndPoint().equals(p2)) {
-                                line.setEndPoint(p1);
-                            }
-                        }
-                    }
-                    
-                    // remove p2 from the constraint solver
-                    // solverManager.removePoint(p2);
-                    // remove p2 from the objects list
-                    objects.remove(p2);
-                    // Also remove from local points list
-                    points.remove(j);
-                    j--; // adjust index 
-                }
-            }
-        }
-    }
-
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = System.nanoTime(); 
         super.paintComponent(g);
         // use Graphics2D for enhanced drawing 
         Graphics2D g2d = (Graphics2D) g;
+        Rectangle clip = g2d.getClipBounds(); 
+        tileCache.paint(g2d, zoomLevel, panX, panY, clip != null ? clip : new Rectangle(0, 0, getWidth(), getHeight())); 
+        g2d.translate(panX, panY); 
         g2d.scale(scale, scale); 
-        for (GeometricObject obj : objects) {
-            obj.draw(g2d);
+
+        // lines picked for the next constraint 
+        g2d.setColor(PENDING_COLOR); 
+        for (LineObject line : pendingLines) {
+            g2d.drawLine((int) Math.round(line.getStartPoint().getX()), (int) Math.round(line.getStartPoint().getY()), 
+                         (int) Math.round(line.getEndPoint().getX()), (int) Math.round(line.getEndPoint().getY())); 
         }
 
         // if in LINE mode and is drawing, draw the temporary rubber band line 
@@ -363,28 +521,53 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                 g.drawArc(x, y, diameter, diameter, (int)arcStartAngle, (int)arcSweepAngle); 
             }
         }
+        latency.painted(paintStart); 
+    }
+
+    // stamp the event about to be handled; the stamp is always real time, for latency tracing 
+    private long beginEvent(MouseEvent e) {
+        repaintRequested = false; 
+        long stamp = System.nanoTime(); 
+        eventTime = clock == null ? stamp : clock.getAsLong(); 
+        if (recorder != null) recorder.mouse(e, eventTime); 
+        return stamp; 
+    }
+
+    private void endEvent(long stamp) {
+        latency.handled(stamp, repaintRequested); 
     }
 
     
     // Other mouse events (can be expanded as needed)
     @Override 
     public void mousePressed(MouseEvent e) {
-        int x = (int) (e.getX() / scale); 
-        int y = (int) (e.getY() / scale); 
+        long stamp = beginEvent(e); 
+        pressed(e); 
+        endEvent(stamp); 
+    }
+
+    private void pressed(MouseEvent e) {
+        if (SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e)) {
+            panning = true; 
+            panStartX = e.getX() - panX; 
+            panStartY = e.getY() - panY; 
+            return; 
+        }
+        int x = modelX(e); 
+        int y = modelY(e); 
         if (currentMode == Mode.POINT) {
-            objects.add(new PointObject(x, y));
-            repaint(); 
+            engine.addPoint(x, y);
+            flushDirty(); 
         } else if (currentMode == Mode.LINE) {
             if (!isDragging) {
                 // first click try to snap to an existing point 
                 // initialize the starting point for the rubber band line 
                 PointObject pt = findNearbyPoint(x, y); 
                 if (pt == null) {
-                    pt = new PointObject(x, y);
-                    objects.add(pt); 
+                    pt = engine.addPoint(x, y); 
                 }
-                startX = pt.getX(); 
-                startY = pt.getY(); 
+                startX = (int) Math.round(pt.getX()); 
+                startY = (int) Math.round(pt.getY()); 
                 currentX = startX;
                 currentY = startY; 
                 currentStartPoint = pt; 
@@ -392,20 +575,19 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                 // initialize flick detection 
                 lastX = currentX; 
                 lastY = currentY; 
-                lastTime = System.currentTimeMillis(); 
+                lastTime = eventTime; 
             } else {
                 // second click try to snap to an existing point 
                 PointObject pt = findNearbyPoint(x, y); 
                 if (pt == null) {
-                    pt = new PointObject(x, y); 
-                    objects.add(pt); 
+                    pt = engine.addPoint(x, y); 
                 } 
                 // create a line that connects the currentStartPoint and the new pt 
-                LineObject line = new LineObject(currentStartPoint, pt); 
-                objects.add(line); 
+                engine.addLine(currentStartPoint, pt); 
+                markOverlayDirty(rubberBandBounds()); 
                 isDragging = false; 
                 currentStartPoint = null; 
-                repaint(); 
+                flushDirty(); 
             }
         } else if (currentMode == Mode.ARC) {
             if (arcStage == 0) {
@@ -414,38 +596,39 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                 arcCenterY = y; 
                 arcStage = 1; 
                 isDragging = true; 
+                markOverlayDirty(arcPreviewBounds()); 
+                flushDirty(); 
                 System.out.println("arc center set"); 
             } else if (arcStage == 1) {
                 // second click to define radius and compute starting angle 
                 arcRadius = (int) Math.round(Math.sqrt(Math.pow(x - arcCenterX, 2) + Math.pow(y - arcCenterY, 2)));
                 arcStartAngle = Math.toDegrees(Math.atan2(arcCenterY - y, x - arcCenterX));
+                // the center dot goes away 
+                markOverlayDirty(arcPreviewBounds()); 
+                flushDirty(); 
                 arcStage = 2;
                 // Initialize flick detection variables for arc dragging.
                 lastX = x;
                 lastY = y;
-                lastTime = System.currentTimeMillis(); 
+                lastTime = eventTime; 
                 System.out.println("arc radius set");
             }
         }else if (currentMode == Mode.DELETE) {
-            // iterate in reverse order so that objects on top are checked first 
-            for (int i = objects.size() - 1; i>=0; i--) {
-                GeometricObject obj = objects.get(i); 
-                if (obj.contains(x,y)) { 
-                    // logic for line 
-                    if (obj instanceof LineObject) {
-                        objects.remove(i); 
-                        System.out.println("deleted line"); 
-                        cleanupLeftoverPoints(); 
-                        repaint(); 
-                        break; 
-                    } else { 
-                        // perhaps other logic for other objects 
-                        objects.remove(i); 
-                        System.out.println("Deleted object"); 
-                        repaint(); 
-                        break; 
-                    }
+            // the topmost object under the mouse, i.e. the last one added 
+            GeometricObject obj = engine.findTopmost(x, y, GeometricObject.class); 
+            if (obj != null) { 
+                // a solve still running would publish coordinates for what is deleted 
+                asyncSolver.cancel(); 
+                // lines take their constraints and unused endpoints with them, points take their lines 
+                engine.delete(obj); 
+                if (obj instanceof LineObject) {
+                    System.out.println("deleted line"); 
+                } else { 
+                    System.out.println("Deleted object"); 
                 }
+                // restart whatever the cancelled solve had left to do 
+                solveConstraints(); 
+                flushDirty(); 
             }
         // } else if (currentMode == Mode.EQUAL_LENGTH) {
         } else if (Arrays.asList(
@@ -454,49 +637,63 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
                     Mode.PERPENDICULAR, 
                     Mode.HORIZONTAL, 
                     Mode.VERTICAL).contains(currentMode)) {
-            boolean found = false;
-            for (int i = objects.size()-1; i>=0; i--) {
-                GeometricObject obj = objects.get(i);
-                if (obj instanceof LineObject && obj.contains(x, y)) {
-                    LineObject line = (LineObject)obj;
-                    if (!pendingLines.contains(line)) {
-                        pendingLines.add(line); 
-                        System.out.println("Selected line: " + line);
-                    }
-                    found = true;
-                    break;
+            LineObject line = engine.findTopmost(x, y, LineObject.class);
+            if (line != null) {
+                if (!pendingLines.contains(line)) {
+                    pendingLines.add(line); 
+                    markOverlayDirty(line.getBounds()); 
+                    flushDirty(); 
+                    System.out.println("Selected line: " + line);
                 }
-            }
-            if (!found) {
+            } else {
                 System.out.println("No line found at ("+x+","+y+")");
             }
         } else if (currentMode == Mode.MOVE) {
             PointObject pt = findNearbyPoint(x, y); 
             if (pt != null) {
-                selectedPoint = pt; 
+                // a solve still running would publish over the drag 
+                asyncSolver.cancel(); 
+                engine.beginDrag(pt, liveDrag); 
             }
         }
     } 
 
     @Override 
     public void mouseDragged(MouseEvent e) {
-        if (currentMode == Mode.LINE && isDragging) {
+        long stamp = beginEvent(e); 
+        dragged(e); 
+        endEvent(stamp); 
+    }
+
+    private void dragged(MouseEvent e) {
+        if (panning) {
+            // cached tiles are only blitted at the new offset 
+            panX = e.getX() - panStartX; 
+            panY = e.getY() - panStartY; 
+            repaint(); 
+        } else if (currentMode == Mode.LINE && isDragging) {
             updateRubberBand(e); 
         } else if (currentMode == Mode.ARC && isDragging) {
             updateArcRubberBand(e); 
-        } else if (currentMode == Mode.MOVE && selectedPoint != null) {
-            // update point position 
-            int newX = (int) (e.getX() / scale); 
-            int newY = (int) (e.getY() / scale); 
-            selectedPoint.setX(newX); 
-            selectedPoint.setY(newY); 
-            repaint(); 
+        } else if (currentMode == Mode.MOVE && engine.getDragPoint() != null) {
+            asyncSolver.cancel(); 
+            // update point position (and live-solve its component) 
+            long start = System.nanoTime(); 
+            engine.dragTo(modelX(e), modelY(e)); 
+            if (liveDrag) latency.solved(System.nanoTime() - start); 
+            flushDirty(); 
         }
     }
 
 
     @Override 
     public void mouseMoved(MouseEvent e) {
+        long stamp = beginEvent(e); 
+        moved(e); 
+        endEvent(stamp); 
+    }
+
+    private void moved(MouseEvent e) {
         if (currentMode == Mode.LINE && isDragging) {
             updateRubberBand(e); 
         } else if (currentMode == Mode.ARC && isDragging) {
@@ -507,23 +704,42 @@ public class DrawingCanvas extends JPanel implements MouseListener, MouseMotionL
 
     @Override 
     public void mouseReleased(MouseEvent e) {
-        if (currentMode == Mode.LINE && isDragging) {
+        long stamp = beginEvent(e); 
+        released(e); 
+        endEvent(stamp); 
+    }
+
+    private void released(MouseEvent e) {
+        if (panning) {
+            panning = false; 
+        } else if (currentMode == Mode.LINE && isDragging) {
             finalizeLine(); 
         } else if (currentMode == Mode.ARC && isDragging && arcStage == 2) {
             updateArcRubberBand(e);
             finalizeArc();
         } else if (currentMode == Mode.MOVE){
-            mergeClosePoints(); 
-            selectedPoint = null; 
+            // weld the dropped point to any point it landed on 
+            engine.endDrag(); 
+            flushDirty(); 
+            // re-satisfy whatever the move disturbed 
+            solveConstraints(); 
         }
     } 
 
+    @Override 
     public void mouseWheelMoved(MouseWheelEvent e) {
-        // if (e. getWheelRotation() < 0) {
-        //     zoomIn();
-        // } else {
-        //     zoomOut(); 
-        // }
+        long stamp = beginEvent(e); 
+        wheelMoved(e); 
+        endEvent(stamp); 
+    }
+
+    private void wheelMoved(MouseWheelEvent e) {
+        // wheel up zooms in, about the cursor; precise rotation adds up to whole steps 
+        wheelRotation -= e.getPreciseWheelRotation(); 
+        int steps = (int) wheelRotation; 
+        if (steps == 0) return; 
+        wheelRotation -= steps; 
+        zoomAbout(zoomLevel + steps, e.getX(), e.getY()); 
     }
 
         
@@ -1,10 +1,12 @@
+import java.util.List;
+
 /**
  * Junita Sirait - COS583
  * 
  * Equal Length constraint is satisfied by moving both the start point and the end point of 
  * both of the lines, in their respective directions, by the amount of delta. Delta is 
- * half the initial length difference. Note that this is somewhat arbitrary as we can just set 
- * delta as the length difference itself. 
+ * a quarter of the length difference: each line's length changes by twice delta, so both 
+ * lines end up at their mean length (a larger delta overshoots and the lengths swap). 
  * 
  */
 public class EqualLengthConstraint implements Constraint { 
@@ -19,34 +21,73 @@ public class EqualLengthConstraint implements Constraint {
     public LineObject baseline() { return this.base; } 
     public LineObject current() { return this.current; } 
 
-    public double error() {
-        return Math.abs(this.base.getLength() - this.current.getLength()); 
-    }
 
-    public void apply() {
+    public List<LineObject> lines() {
+        return List.of(this.base, this.current); 
+    } 
+
+    public int[] points() {
+        return new int[] {
+            this.base.getStartPoint().getIndex(), this.base.getEndPoint().getIndex(), 
+            this.current.getStartPoint().getIndex(), this.current.getEndPoint().getIndex() 
+        }; 
+    } 
+
+    public double apply(double[] xs, double[] ys, int[] at) {
         // System.out.println("* Applying equal length line constraints *"); 
-        PointObject baseStartpoint = this.base.getStartPoint(); 
-        PointObject baseEndpoint = this.base.getEndPoint(); 
-        PointObject currentStartpoint = this.current.getStartPoint(); 
-        PointObject currentEndpoint = this.current.getEndPoint(); 
+        int baseStartpoint = at[0], baseEndpoint = at[1]; 
+        int currentStartpoint = at[2], currentEndpoint = at[3]; 
 
-        double baseLen = this.base.getLength(); 
-        double currentLen = this.current.getLength(); 
+        double baseLen = Math.hypot(xs[baseEndpoint] - xs[baseStartpoint], ys[baseEndpoint] - ys[baseStartpoint]); 
+        double currentLen = Math.hypot(xs[currentEndpoint] - xs[currentStartpoint], ys[currentEndpoint] - ys[currentStartpoint]); 
+        double error = Math.abs(baseLen - currentLen); 
+        // a collapsed line has no direction to grow along 
+        if (baseLen == 0 || currentLen == 0) return error; 
 
-        double delta = (currentLen - baseLen) / 2.0; 
-        // System.out.println("delta: " + delta); 
+        double delta = (currentLen - baseLen) / 4.0; 
 
         // TODO: what happens when sharing points? 
         // direction vectors 
-        double uxBase = (baseEndpoint.getX() - baseStartpoint.getX()) / baseLen; 
-        double uyBase = (baseEndpoint.getY() - baseStartpoint.getY()) / baseLen; 
-        double uxCurrent = (currentEndpoint.getX() - currentStartpoint.getX()) / currentLen; 
-        double uyCurrent = (currentEndpoint.getY() - currentStartpoint.getY()) / currentLen; 
+        double uxBase = (xs[baseEndpoint] - xs[baseStartpoint]) / baseLen; 
+        double uyBase = (ys[baseEndpoint] - ys[baseStartpoint]) / baseLen; 
+        double uxCurrent = (xs[currentEndpoint] - xs[currentStartpoint]) / currentLen; 
+        double uyCurrent = (ys[currentEndpoint] - ys[currentStartpoint]) / currentLen; 
 
         // move endpoints by +- delta along their line 
-        baseStartpoint.moveBy((int) (-delta *uxBase), (int) (-delta * uyBase)); 
-        baseEndpoint.moveBy((int) (delta * uxBase), (int) (delta * uyBase)); 
-        currentStartpoint.moveBy((int) (delta *uxCurrent), (int) (delta * uyCurrent)); 
-        currentEndpoint.moveBy((int) (-delta * uxCurrent), (int) (-delta * uyCurrent)); 
+        xs[baseStartpoint] -= delta * uxBase; 
+        ys[baseStartpoint] -= delta * uyBase; 
+        xs[baseEndpoint] += delta * uxBase; 
+        ys[baseEndpoint] += delta * uyBase; 
+        xs[currentStartpoint] += delta * uxCurrent; 
+        ys[currentStartpoint] += delta * uyCurrent; 
+        xs[currentEndpoint] -= delta * uxCurrent; 
+        ys[currentEndpoint] -= delta * uyCurrent; 
+        return error; 
+    }
+
+    // residual: |base| - |current| 
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return residual(xs, ys, at[0], at[1], at[2], at[3]); 
+    }
+
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        gradient(xs, ys, at[0], at[1], at[2], at[3], grad); 
+    }
+
+    // the residual of line a0-a1 against line b0-b1 (slots), shared with EqualLengthGroupConstraint 
+    static double residual(double[] xs, double[] ys, int a0, int a1, int b0, int b1) {
+        double baseLen = Math.hypot(xs[a1] - xs[a0], ys[a1] - ys[a0]); 
+        double currentLen = Math.hypot(xs[b1] - xs[b0], ys[b1] - ys[b0]); 
+        return baseLen - currentLen; 
+    }
+
+    static void gradient(double[] xs, double[] ys, int a0, int a1, int b0, int b1, double[] grad) {
+        double ax = xs[a1] - xs[a0], ay = ys[a1] - ys[a0]; 
+        double bx = xs[b1] - xs[b0], by = ys[b1] - ys[b0]; 
+        double la = Math.hypot(ax, ay), lb = Math.hypot(bx, by); 
+        double uax = la == 0 ? 0 : ax/la, uay = la == 0 ? 0 : ay/la; 
+        double ubx = lb == 0 ? 0 : bx/lb, uby = lb == 0 ? 0 : by/lb; 
+        grad[0] = -uax; grad[1] = -uay; grad[2] = uax; grad[3] = uay; 
+        grad[4] = ubx;  grad[5] = uby;  grad[6] = -ubx; grad[7] = -uby; 
     }
 }
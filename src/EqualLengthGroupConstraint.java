@@ -0,0 +1,82 @@
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Makes any number of lines the same length with one constraint, where pairwise
+ * EqualLengthConstraints would take k(k-1)/2 of them for k lines. Each sweep moves both endpoints
+ * of every line along the line, in opposite directions, so its length becomes the mean length of
+ * the group: O(k) per sweep.
+ *
+ * For the Newton solver every other line is compared with the first one, k-1 residuals of the same
+ * form as EqualLengthConstraint's, each reading only the two lines' points.
+ */
+public class EqualLengthGroupConstraint implements Constraint {
+    private final List<LineObject> lines;
+    private final int[][] rows;
+
+    public EqualLengthGroupConstraint(List<LineObject> lines) {
+        if (lines.size() < 2) throw new IllegalArgumentException("an equal-length group takes at least 2 lines");
+        this.lines = List.copyOf(lines);
+        this.rows = ParallelGroupConstraint.starRows(lines.size());
+    }
+
+
+    public List<LineObject> lines() {
+        return this.lines;
+    }
+
+    public int[] points() {
+        return ParallelGroupConstraint.linePoints(this.lines);
+    }
+
+    public double apply(double[] xs, double[] ys, int[] at) {
+        double sum = 0, min = Double.MAX_VALUE, max = 0;
+        for (int i = 0; i < at.length; i += 2) {
+            double len = Math.hypot(xs[at[i+1]] - xs[at[i]], ys[at[i+1]] - ys[at[i]]);
+            sum += len;
+            min = Math.min(min, len);
+            max = Math.max(max, len);
+        }
+        double mean = sum / (at.length / 2);
+        // the spread, i.e. the largest pairwise error
+        double error = max - min;
+
+        for (int i = 0; i < at.length; i += 2) {
+            int start = at[i], end = at[i+1];
+            double dx = xs[end] - xs[start], dy = ys[end] - ys[start];
+            double len = Math.hypot(dx, dy);
+            // a collapsed line has no direction to grow along
+            if (len == 0) continue;
+            double delta = (len - mean) / 2.0;
+            double ux = dx / len, uy = dy / len;
+            xs[start] += delta * ux;
+            ys[start] += delta * uy;
+            xs[end] -= delta * ux;
+            ys[end] -= delta * uy;
+        }
+        return error;
+    }
+
+    public int residualCount() {
+        return this.rows.length;
+    }
+
+    public int[] operandsOf(int row) {
+        return this.rows[row];
+    }
+
+    // residual r: |first line| - |line r+1|, as in EqualLengthConstraint
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return EqualLengthConstraint.residual(xs, ys, at[0], at[1], at[2*row + 2], at[2*row + 3]);
+    }
+
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        EqualLengthConstraint.gradient(xs, ys, at[0], at[1], at[2*row + 2], at[2*row + 3], grad);
+    }
+
+    public Constraint without(LineObject line) {
+        List<LineObject> rest = ParallelGroupConstraint.without(this.lines, line);
+        return rest == null ? null : new EqualLengthGroupConstraint(rest);
+    }
+}
@@ -1,4 +1,5 @@
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Junita Sirait - COS583
@@ -8,4 +9,9 @@ import java.awt.Graphics2D;
 public abstract class GeometricObject {
     public abstract void draw(Graphics2D g2d);
     public abstract boolean contains(int px, int py);
+    // extent in drawing coordinates, used for spatial indexing and repainting 
+    public abstract Rectangle2D getBounds();
+    // add this object to its tile's render batch; objects that cannot be batched return false 
+    // and are drawn on their own 
+    public boolean appendTo(RenderBatches.Batch batch) { return false; }
 }
@@ -1,4 +1,5 @@
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 
 // for copying and pasting groups of objects (OOP)
@@ -40,6 +41,19 @@ public class GroupInstance extends GeometricObject {
         return false;
     }
 
+    @Override
+    public Rectangle2D getBounds() {
+        Rectangle2D bounds = null;
+        for (GeometricObject obj : prototype.getObjects()) {
+            Rectangle2D b = obj.getBounds();
+            if (bounds == null) bounds = b;
+            else bounds.add(b);
+        }
+        if (bounds == null) return new Rectangle2D.Double(offsetX, offsetY, 0, 0);
+        bounds.setRect(bounds.getX() + offsetX, bounds.getY() + offsetY, bounds.getWidth(), bounds.getHeight());
+        return bounds;
+    }
+
     @Override
     public String toString() {
         return "GroupInstance at (" + offsetX + ", " + offsetY + ")";
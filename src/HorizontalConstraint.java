@@ -1,3 +1,5 @@
+import java.util.List;
+
 /**
  * Junita Sirait - COS583
  * 
@@ -9,23 +11,35 @@
  */
 public class HorizontalConstraint implements Constraint { 
     private final LineObject line; 
-    private double error; 
 
     public HorizontalConstraint(LineObject line) { 
         this.line = line; 
     } 
 
-    public void apply() { 
+    public List<LineObject> lines() {
+        return List.of(line); 
+    } 
+
+    public int[] points() {
+        return new int[] { line.getStartPoint().getIndex(), line.getEndPoint().getIndex() }; 
+    } 
+
+    public double apply(double[] xs, double[] ys, int[] at) { 
         // System.out.println("Applying HORIZONTAL constraint"); 
-        PointObject p1 = line.getStartPoint(), p2 = line.getEndPoint(); 
-        int dy = p2.getY() - p1.getY(); 
-        int delta = dy/2; 
-        p1.moveBy(0, delta); 
-        p2.moveBy(0, -1*delta); 
-        this.error = Math.abs(dy); 
+        int p1 = at[0], p2 = at[1]; 
+        double dy = ys[p2] - ys[p1]; 
+        double delta = dy/2; 
+        ys[p1] += delta; 
+        ys[p2] -= delta; 
+        return Math.abs(dy); 
+    } 
+
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return ys[at[1]] - ys[at[0]]; 
     } 
 
-    public double error() {
-        return this.error; 
-    }     
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        grad[0] = 0;  grad[1] = -1; 
+        grad[2] = 0;  grad[3] = 1; 
+    } 
 }
@@ -0,0 +1,118 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Latency of the interactive path, from a mouse event reaching DrawingCanvas to the frame that
+ * shows its effect. Each event is stamped with System.nanoTime when its handler starts; if the
+ * handler asks for a repaint, the stamp waits for the end of the next paintComponent and the
+ * difference goes into the input-to-paint histogram. Several events coalesced into one repaint
+ * are each matched to that paint. Handler, solve and paint times are kept alongside, so a slow
+ * frame can be pinned on one of them; solve covers the synchronous solves done on the event
+ * thread and, for background solves, the time from the request to the published result.
+ *
+ * Off by default (-Dsketchpad.latency=true or the Enabled attribute of the
+ * "sketchpad:type=InputLatency" MBean turn it on); the target defaults to one 60 Hz frame and
+ * can be set with -Dsketchpad.latency.target=<ms>. All recording happens on the event thread.
+ */
+public class InputLatency implements InputLatencyMXBean {
+    public static final String OBJECT_NAME = "sketchpad:type=InputLatency";
+    // events waiting for a paint beyond this many are not matched (no paint is coming)
+    private static final int MAX_PENDING = 1024;
+
+    private static final InputLatency SHARED = new InputLatency(Boolean.getBoolean("sketchpad.latency"),
+            Double.parseDouble(System.getProperty("sketchpad.latency.target", "16.7")));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(SHARED, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.err.println("input latency is not available over JMX: " + e);
+        }
+    }
+
+    public static InputLatency shared() { return SHARED; }
+
+    private volatile boolean enabled;
+    private volatile long targetNanos;
+    private volatile long overTarget = 0;
+
+    private final LatencyHistogram inputToPaint = new LatencyHistogram();
+    private final LatencyHistogram handler = new LatencyHistogram();
+    private final LatencyHistogram solve = new LatencyHistogram();
+    private final LatencyHistogram paint = new LatencyHistogram();
+
+    // stamps of handled events whose repaint has not happened yet
+    private final long[] pending = new long[MAX_PENDING];
+    private int pendingCount = 0;
+
+    public InputLatency(boolean enabled, double targetMillis) {
+        this.enabled = enabled;
+        setTargetMillis(targetMillis);
+    }
+
+    @Override public boolean isEnabled() { return enabled; }
+    @Override public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    @Override public double getTargetMillis() { return targetNanos / 1e6; }
+    @Override public void setTargetMillis(double millis) { this.targetNanos = (long) (millis * 1e6); }
+    @Override public long getOverTargetCount() { return overTarget; }
+
+    // the handler of the event stamped `stamp` returned; `repainted` if it asked for a repaint
+    public void handled(long stamp, boolean repainted) {
+        if (!enabled) return;
+        handler.record(System.nanoTime() - stamp);
+        if (repainted && pendingCount < MAX_PENDING) pending[pendingCount++] = stamp;
+    }
+
+    public void solved(long nanos) {
+        if (enabled) solve.record(nanos);
+    }
+
+    // a paintComponent that started at `start` is done; it shows every event handled before it
+    public void painted(long start) {
+        if (!enabled) {
+            pendingCount = 0;
+            return;
+        }
+        long now = System.nanoTime();
+        paint.record(now - start);
+        for (int i = 0; i < pendingCount; i++) {
+            long latency = now - pending[i];
+            inputToPaint.record(latency);
+            if (latency > targetNanos) overTarget++;
+        }
+        pendingCount = 0;
+    }
+
+    public LatencyHistogram inputToPaint() { return inputToPaint; }
+    public LatencyHistogram handler() { return handler; }
+    public LatencyHistogram solve() { return solve; }
+    public LatencyHistogram paint() { return paint; }
+
+    @Override public double getInputToPaintP50Millis() { return inputToPaint.percentile(0.5) / 1e6; }
+    @Override public double getInputToPaintP99Millis() { return inputToPaint.percentile(0.99) / 1e6; }
+    @Override public double getInputToPaintMaxMillis() { return inputToPaint.max() / 1e6; }
+
+    @Override public String getInputToPaint() { return inputToPaint.toString(); }
+    @Override public String getHandler() { return handler.toString(); }
+    @Override public String getSolve() { return solve.toString(); }
+    @Override public String getPaint() { return paint.toString(); }
+
+    @Override
+    public String dump() {
+        return String.format("input to paint: %s, %d over the %.1f ms target%nhandler:        %s%nsolve:          %s%npaint:          %s%n",
+                             inputToPaint, overTarget, getTargetMillis(), handler, solve, paint);
+    }
+
+    @Override
+    public void reset() {
+        inputToPaint.reset();
+        handler.reset();
+        solve.reset();
+        paint.reset();
+        overTarget = 0;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * Junita Sirait - COS583
+ *
+ * Management interface of InputLatency, as seen from jconsole / VisualVM under
+ * "sketchpad:type=InputLatency". Times are in milliseconds.
+ */
+public interface InputLatencyMXBean {
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+
+    // the input-to-paint time an interaction should stay under
+    double getTargetMillis();
+    void setTargetMillis(double millis);
+    long getOverTargetCount();
+
+    double getInputToPaintP50Millis();
+    double getInputToPaintP99Millis();
+    double getInputToPaintMaxMillis();
+
+    // one line (samples, p50, p99, max) per stage
+    String getInputToPaint();
+    String getHandler();
+    String getSolve();
+    String getPaint();
+
+    String dump();
+    void reset();
+}
@@ -0,0 +1,249 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * JSON Lines sketch files (".jsonl") for exchanging drawings with other tools, one record per line:
+ *
+ *   {"type":"point","id":0,"x":10.0,"y":20.0}
+ *   {"type":"line","id":2,"start":0,"end":1}
+ *   {"type":"arc","id":3,"x":0,"y":0,"width":40,"height":40,"start":0,"sweep":90}
+ *   {"type":"constraint","kind":"parallel","lines":[2,5]}
+ *
+ * Ids are the objects' positions in the engine, so exporting needs no numbering of its own: points
+ * are written first, then the other objects, then the constraints, each straight from the engine.
+ * Importing reads one record at a time and only remembers which object each id became; a record is
+ * a flat object of numbers, strings and number arrays, so no general JSON parser is needed.
+ */
+public class JsonLinesSketchFormat implements SketchFormat {
+    @Override
+    public String extension() { return ".jsonl"; }
+
+    @Override
+    public void read(Path file, SketchEngine engine) throws IOException {
+        Map<Integer, PointObject> points = new HashMap<>();
+        Map<Integer, LineObject> lines = new HashMap<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            int lineNumber = 0;
+            while ((text = in.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) continue;
+                try {
+                    Map<String, Object> r = parse(text);
+                    String type = string(r, "type");
+                    switch (type) {
+                        case "point":
+                            points.put(integer(r, "id"), engine.addPoint(number(r, "x"), number(r, "y")));
+                            break;
+                        case "line":
+                            lines.put(integer(r, "id"), engine.addLine(lookup(points, integer(r, "start")),
+                                                                       lookup(points, integer(r, "end"))));
+                            break;
+                        case "arc":
+                            engine.add(new ArcObject(integer(r, "x"), integer(r, "y"), integer(r, "width"),
+                                                     integer(r, "height"), integer(r, "start"), integer(r, "sweep")));
+                            break;
+                        case "constraint":
+                            List<LineObject> on = new ArrayList<>(2);
+                            for (double id : numbers(r, "lines")) on.add(lookup(lines, (int) id));
+                            engine.addConstraint(SketchFormats.constraint(string(r, "kind"), on));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("unknown type '" + type + "'");
+                    }
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(SketchEngine engine, Path file) throws IOException {
+        List<GeometricObject> objects = engine.getObjects();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder record = new StringBuilder(128);
+            // points first, so every line comes after its endpoints
+            for (int i = 0; i < objects.size(); i++) {
+                if (!(objects.get(i) instanceof PointObject)) continue;
+                PointObject p = (PointObject) objects.get(i);
+                record.setLength(0);
+                record.append("{\"type\":\"point\",\"id\":").append(i)
+                      .append(",\"x\":").append(p.getX()).append(",\"y\":").append(p.getY()).append('}');
+                emit(out, record);
+            }
+            for (int i = 0; i < objects.size(); i++) {
+                GeometricObject obj = objects.get(i);
+                record.setLength(0);
+                if (obj instanceof LineObject) {
+                    LineObject line = (LineObject) obj;
+                    record.append("{\"type\":\"line\",\"id\":").append(i)
+                          .append(",\"start\":").append(engine.indexOf(line.getStartPoint()))
+                          .append(",\"end\":").append(engine.indexOf(line.getEndPoint())).append('}');
+                } else if (obj instanceof ArcObject) {
+                    ArcObject arc = (ArcObject) obj;
+                    record.append("{\"type\":\"arc\",\"id\":").append(i)
+                          .append(",\"x\":").append(arc.getX()).append(",\"y\":").append(arc.getY())
+                          .append(",\"width\":").append(arc.getWidth()).append(",\"height\":").append(arc.getHeight())
+                          .append(",\"start\":").append(arc.getStartAngle()).append(",\"sweep\":").append(arc.getArcAngle())
+                          .append('}');
+                } else {
+                    continue;
+                }
+                emit(out, record);
+            }
+            for (Constraint c : engine.getConstraints()) {
+                record.setLength(0);
+                record.append("{\"type\":\"constraint\",\"kind\":\"").append(SketchFormats.kindOf(c)).append("\",\"lines\":[");
+                List<LineObject> on = c.lines();
+                for (int k = 0; k < on.size(); k++) {
+                    if (k > 0) record.append(',');
+                    record.append(engine.indexOf(on.get(k)));
+                }
+                record.append("]}");
+                emit(out, record);
+            }
+        }
+    }
+
+    private static void emit(BufferedWriter out, StringBuilder record) throws IOException {
+        out.append(record);
+        out.newLine();
+    }
+
+    private static <T> T lookup(Map<Integer, T> byId, int id) {
+        T obj = byId.get(id);
+        if (obj == null) throw new IllegalArgumentException("no object with id " + id);
+        return obj;
+    }
+
+    private static String string(Map<String, Object> r, String key) {
+        Object v = r.get(key);
+        if (!(v instanceof String)) throw new IllegalArgumentException("missing string '" + key + "'");
+        return (String) v;
+    }
+
+    private static double number(Map<String, Object> r, String key) {
+        Object v = r.get(key);
+        if (!(v instanceof Double)) throw new IllegalArgumentException("missing number '" + key + "'");
+        return (Double) v;
+    }
+
+    private static int integer(Map<String, Object> r, String key) {
+        double v = number(r, key);
+        if (v != Math.rint(v)) throw new IllegalArgumentException("'" + key + "' is not an integer");
+        return (int) v;
+    }
+
+    private static double[] numbers(Map<String, Object> r, String key) {
+        Object v = r.get(key);
+        if (!(v instanceof double[])) throw new IllegalArgumentException("missing array '" + key + "'");
+        return (double[]) v;
+    }
+
+    // one flat record: string keys, values that are strings, numbers or arrays of numbers
+    private static Map<String, Object> parse(String text) {
+        Map<String, Object> r = new HashMap<>();
+        int[] at = { skip(text, 0) };
+        expect(text, at, '{');
+        if (peek(text, at) == '}') return r;
+        while (true) {
+            String key = parseString(text, at);
+            expect(text, at, ':');
+            char c = peek(text, at);
+            if (c == '"') {
+                r.put(key, parseString(text, at));
+            } else if (c == '[') {
+                at[0]++;
+                List<Double> values = new ArrayList<>();
+                if (peek(text, at) == ']') {
+                    at[0]++;
+                } else {
+                    do {
+                        values.add(parseNumber(text, at));
+                    } while (next(text, at, ',', ']'));
+                }
+                double[] array = new double[values.size()];
+                for (int i = 0; i < array.length; i++) array[i] = values.get(i);
+                r.put(key, array);
+            } else {
+                r.put(key, parseNumber(text, at));
+            }
+            if (!next(text, at, ',', '}')) return r;
+        }
+    }
+
+    private static String parseString(String text, int[] at) {
+        expect(text, at, '"');
+        StringBuilder s = new StringBuilder();
+        for (int i = at[0]; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                at[0] = skip(text, i + 1);
+                return s.toString();
+            }
+            if (c == '\\') {
+                if (++i == text.length()) break;
+                c = text.charAt(i);
+                switch (c) {
+                    case 'n': s.append('\n'); break;
+                    case 't': s.append('\t'); break;
+                    case 'r': s.append('\r'); break;
+                    case 'b': s.append('\b'); break;
+                    case 'f': s.append('\f'); break;
+                    case 'u':
+                        if (i + 4 >= text.length()) throw new IllegalArgumentException("bad escape");
+                        s.append((char) Integer.parseInt(text.substring(i + 1, i + 5), 16));
+                        i += 4;
+                        break;
+                    default: s.append(c);  // \" \\ \/
+                }
+            } else {
+                s.append(c);
+            }
+        }
+        throw new IllegalArgumentException("unterminated string");
+    }
+
+    private static double parseNumber(String text, int[] at) {
+        int start = at[0], i = start;
+        while (i < text.length() && "+-0123456789.eE".indexOf(text.charAt(i)) >= 0) i++;
+        if (i == start) throw new IllegalArgumentException("expected a value at column " + (start + 1));
+        double v = Double.parseDouble(text.substring(start, i));
+        at[0] = skip(text, i);
+        return v;
+    }
+
+    // consume `more` (returning true) or `end` (returning false)
+    private static boolean next(String text, int[] at, char more, char end) {
+        char c = peek(text, at);
+        if (c != more && c != end) throw new IllegalArgumentException("expected '" + more + "' or '" + end + "'");
+        at[0] = skip(text, at[0] + 1);
+        return c == more;
+    }
+
+    private static void expect(String text, int[] at, char c) {
+        if (peek(text, at) != c) throw new IllegalArgumentException("expected '" + c + "' at column " + (at[0] + 1));
+        at[0] = skip(text, at[0] + 1);
+    }
+
+    private static char peek(String text, int[] at) {
+        if (at[0] >= text.length()) throw new IllegalArgumentException("record ends early");
+        return text.charAt(at[0]);
+    }
+
+    private static int skip(String text, int i) {
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+}
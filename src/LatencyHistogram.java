@@ -0,0 +1,85 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Histogram of durations in nanoseconds with log-linear buckets: every power of two is split into
+ * SUB_BUCKETS equal buckets, so a percentile read back is within 1/SUB_BUCKETS of the true value
+ * over the whole range, from nanoseconds to minutes, in a few hundred counters. Recording is one
+ * array increment and never allocates; it can be read from any thread while it is written.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // durations up to 2^MAX_BITS ns (about 18 minutes); longer ones land in the last bucket
+    private static final int MAX_BITS = 40;
+    private static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        total.increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    // values below SUB_BUCKETS get a bucket each; above, the top SUB_BITS + 1 bits pick the bucket
+    static int bucketOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb >= MAX_BITS) return BUCKETS - 1;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // the largest value that falls in `bucket`
+    static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long low = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return low + (1L << shift) - 1;
+    }
+
+    public long count() { return total.sum(); }
+    public long max() { return max.get(); }
+    public double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    // the value at or below which `fraction` of the recorded durations lie (0 when empty); never
+    // more than the largest value recorded
+    public long percentile(double fraction) {
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) n += counts.get(b);
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * n));
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank) return Math.min(upperBound(b), max());
+        }
+        return max();
+    }
+
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) counts.set(b, 0);
+        total.reset();
+        sum.reset();
+        max.reset();
+    }
+
+    // e.g. "1042 samples, p50 3.2 ms, p99 14.8 ms, max 21.0 ms"
+    @Override
+    public String toString() {
+        return String.format("%d samples, p50 %.2f ms, p99 %.2f ms, max %.2f ms", count(),
+                             percentile(0.5) / 1e6, percentile(0.99) / 1e6, max() / 1e6);
+    }
+}
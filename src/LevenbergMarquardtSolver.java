@@ -0,0 +1,198 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Newton-style solver: instead of letting each constraint move its own points, we linearize all
+ * constraints together (r + J dx = 0) and take one damped Gauss-Newton step for the whole system.
+ *
+ * Sketches are almost always under-determined (more coordinates than constraints), so we take the
+ * minimum-norm step dx = -J^T (J J^T + lambda I)^-1 r, i.e. the smallest move of the points that
+ * satisfies the linearized constraints. The inner m x m system is solved matrix-free with conjugate
+ * gradients, so J is only ever stored sparsely (each row touches at most a handful of points).
+ * Lambda is adapted Levenberg-Marquardt style: shrink after a step that lowers the error, grow and
+ * retry after a step that does not.
+ */
+public class LevenbergMarquardtSolver {
+    private static final double LAMBDA_INITIAL = 1e-3;
+    private static final double LAMBDA_MIN = 1e-9;
+    private static final double LAMBDA_MAX = 1e9;
+    private static final int CG_MAX = 200;
+
+    // solves one component in place and records iterations / final error on it;
+    // points with pinned[slot] set (pinned may be null) are held fixed; with `timing` set, each
+    // linearization of a constraint is reported to it as one application
+    public void solve(double[] xs, double[] ys, ConstraintComponent component, int maxIter, double tolerance,
+                      boolean[] pinned, ConstraintSolverManager.SolveControl control, SolverMetrics timing) {
+        List<Constraint> constraints = component.constraints();
+        int[][] at = component.slots();
+        // number the distinct points touched by the constraints as unknowns
+        Map<Integer, Integer> var = new HashMap<>();
+        int rows = 0;
+        int nnz = 0;
+        for (int i = 0; i < at.length; i++) {
+            Constraint c = constraints.get(i);
+            for (int slot : at[i]) var.putIfAbsent(slot, var.size());
+            rows += c.residualCount();
+            for (int q = 0; q < c.residualCount(); q++) nnz += 2 * width(c, q, at[i]);
+        }
+        int n = var.size();
+        int[] slots = new int[n];
+        for (Map.Entry<Integer, Integer> e : var.entrySet()) slots[e.getValue()] = e.getKey();
+
+        // sparse Jacobian in row-compressed form; column 2v is x of unknown v, 2v+1 is y
+        int[] rowStart = new int[rows + 1];
+        int[] cols = new int[nnz];
+        double[] vals = new double[nnz];
+        for (int i = 0, row = 0, k = 0; i < at.length; i++) {
+            Constraint c = constraints.get(i);
+            for (int q = 0; q < c.residualCount(); q++, row++) {
+                rowStart[row] = k;
+                int[] ops = c.operandsOf(q);
+                for (int j = 0; j < width(c, q, at[i]); j++) {
+                    int v = var.get(at[i][ops == null ? j : ops[j]]);
+                    cols[k++] = 2*v;
+                    cols[k++] = 2*v + 1;
+                }
+            }
+        }
+        rowStart[rows] = nnz;
+
+        double[] r = new double[rows];
+        double[] trial = new double[rows];
+        double[] grad = new double[8];
+        double[] saved = new double[2*n];
+        double[] step = new double[2*n];
+        double[] y = new double[rows];
+        double lambda = LAMBDA_INITIAL;
+
+        double cost = residuals(xs, ys, constraints, at, r);
+        int iter = 0;
+        while (iter < maxIter && maxAbs(r) >= tolerance && !control.isCancelled()) {
+            iter++;
+            // linearize at the current positions
+            for (int i = 0, row = 0; i < at.length; i++) {
+                Constraint c = constraints.get(i);
+                long t0 = timing != null ? System.nanoTime() : 0;
+                for (int q = 0; q < c.residualCount(); q++, row++) {
+                    int[] ops = c.operandsOf(q);
+                    int width = rowStart[row + 1] - rowStart[row];
+                    if (grad.length < width) grad = new double[width];
+                    c.gradient(q, xs, ys, at[i], grad);
+                    System.arraycopy(grad, 0, vals, rowStart[row], width);
+                    if (pinned == null) continue;
+                    // a pinned point gets no column, so the step never moves it
+                    for (int k = 0; k < width / 2; k++) {
+                        if (pinned[at[i][ops == null ? k : ops[k]]]) vals[rowStart[row] + 2*k] = vals[rowStart[row] + 2*k + 1] = 0;
+                    }
+                }
+                if (timing != null) timing.applied(c, System.nanoTime() - t0);
+            }
+            for (int v = 0; v < n; v++) {
+                saved[2*v] = xs[slots[v]];
+                saved[2*v + 1] = ys[slots[v]];
+            }
+
+            // try steps with growing damping until one lowers the cost
+            boolean accepted = false;
+            while (!accepted && lambda <= LAMBDA_MAX) {
+                conjugateGradient(rowStart, cols, vals, n, lambda, r, y);
+                Arrays.fill(step, 0);
+                for (int row = 0; row < rows; row++) {
+                    for (int k = rowStart[row]; k < rowStart[row + 1]; k++) step[cols[k]] -= vals[k] * y[row];
+                }
+                for (int v = 0; v < n; v++) {
+                    xs[slots[v]] = saved[2*v] + step[2*v];
+                    ys[slots[v]] = saved[2*v + 1] + step[2*v + 1];
+                }
+                double trialCost = residuals(xs, ys, constraints, at, trial);
+                if (trialCost < cost) {
+                    cost = trialCost;
+                    double[] swap = r; r = trial; trial = swap;
+                    lambda = Math.max(lambda / 10, LAMBDA_MIN);
+                    accepted = true;
+                } else {
+                    for (int v = 0; v < n; v++) {
+                        xs[slots[v]] = saved[2*v];
+                        ys[slots[v]] = saved[2*v + 1];
+                    }
+                    lambda *= 10;
+                }
+            }
+            // no damping gives progress: we are at a (local) minimum
+            if (!accepted) break;
+            control.checkpoint();
+        }
+        component.iterations = iter;
+        component.maxError = maxAbs(r);
+        component.converged = component.maxError < tolerance;
+    }
+
+    // number of operand points residual `row` of c depends on
+    private static int width(Constraint c, int row, int[] at) {
+        int[] ops = c.operandsOf(row);
+        return ops == null ? at.length : ops.length;
+    }
+
+    // fills r and returns the cost 0.5 * |r|^2
+    private double residuals(double[] xs, double[] ys, List<Constraint> constraints, int[][] at, double[] r) {
+        double cost = 0;
+        for (int i = 0, row = 0; i < at.length; i++) {
+            Constraint c = constraints.get(i);
+            for (int q = 0; q < c.residualCount(); q++, row++) {
+                r[row] = c.residual(q, xs, ys, at[i]);
+                cost += 0.5 * r[row] * r[row];
+            }
+        }
+        return cost;
+    }
+
+    private static double maxAbs(double[] r) {
+        double max = 0;
+        for (double v : r) max = Math.max(max, Math.abs(v));
+        return max;
+    }
+
+    // solve (J J^T + lambda I) y = r without forming J J^T
+    private void conjugateGradient(int[] rowStart, int[] cols, double[] vals, int n, double lambda,
+                                   double[] r, double[] y) {
+        int rows = r.length;
+        double[] res = r.clone();
+        double[] dir = r.clone();
+        double[] ad = new double[rows];
+        double[] tmp = new double[2*n];
+        Arrays.fill(y, 0);
+        double rr = dot(res, res);
+        double stop = 1e-20 * Math.max(rr, 1);
+        for (int it = 0; it < Math.min(rows, CG_MAX) && rr > stop; it++) {
+            // ad = J (J^T dir) + lambda dir
+            Arrays.fill(tmp, 0);
+            for (int row = 0; row < rows; row++) {
+                for (int k = rowStart[row]; k < rowStart[row + 1]; k++) tmp[cols[k]] += vals[k] * dir[row];
+            }
+            for (int row = 0; row < rows; row++) {
+                double sum = lambda * dir[row];
+                for (int k = rowStart[row]; k < rowStart[row + 1]; k++) sum += vals[k] * tmp[cols[k]];
+                ad[row] = sum;
+            }
+            double alpha = rr / dot(dir, ad);
+            for (int row = 0; row < rows; row++) {
+                y[row] += alpha * dir[row];
+                res[row] -= alpha * ad[row];
+            }
+            double rrNew = dot(res, res);
+            double beta = rrNew / rr;
+            for (int row = 0; row < rows; row++) dir[row] = res[row] + beta * dir[row];
+            rr = rrNew;
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) sum += a[i] * b[i];
+        return sum;
+    }
+}
@@ -1,6 +1,7 @@
 // LineObject.java
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
 
 /**
  * Junita Sirait - COS583
@@ -32,14 +33,22 @@ public class LineObject extends GeometricObject {
     @Override
     public void draw(Graphics2D g2d) {
         g2d.setColor(Color.BLACK);
-        g2d.drawLine(startPoint.getX(), startPoint.getY(), endPoint.getX(), endPoint.getY());
+        g2d.drawLine((int) Math.round(startPoint.getX()), (int) Math.round(startPoint.getY()), 
+                     (int) Math.round(endPoint.getX()), (int) Math.round(endPoint.getY()));
+    }
+
+    @Override
+    public boolean appendTo(RenderBatches.Batch batch) {
+        batch.line(Math.round(startPoint.getX()), Math.round(startPoint.getY()), 
+                   Math.round(endPoint.getX()), Math.round(endPoint.getY())); 
+        return true; 
     }
     
     @Override
     public boolean contains(int px, int py) {
         final double tolerance = 10.0;
-        int x1 = startPoint.getX(), y1 = startPoint.getY();
-        int x2 = endPoint.getX(), y2 = endPoint.getY();
+        double x1 = startPoint.getX(), y1 = startPoint.getY();
+        double x2 = endPoint.getX(), y2 = endPoint.getY();
         double dx = x2 - x1, dy = y2 - y1;
         double lengthSquared = dx * dx + dy * dy;
         if (lengthSquared == 0) return false;
@@ -51,6 +60,13 @@ public class LineObject extends GeometricObject {
         return distance <= tolerance;
     }
     
+    @Override
+    public Rectangle2D getBounds() {
+        double x1 = startPoint.getX(), y1 = startPoint.getY();
+        double x2 = endPoint.getX(), y2 = endPoint.getY();
+        return new Rectangle2D.Double(Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1), Math.abs(y2 - y1));
+    }
+    
     public double getLength() {
         double dx = endPoint.getX() - startPoint.getX();
         double dy = endPoint.getY() - startPoint.getY();
@@ -0,0 +1,128 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Makes any number of lines parallel with one constraint, where pairwise ParallelLineConstraints
+ * would take k(k-1)/2 of them for k lines. Each sweep rotates every line about its midpoint half
+ * way towards a shared direction, the length-weighted mean direction of the group, so a sweep is
+ * O(k). Lines have no arrow (a line and its reverse are parallel), so directions are averaged as
+ * doubled angles.
+ *
+ * For the Newton solver every other line is compared with the first one, k-1 residuals of the same
+ * form as ParallelLineConstraint's, each reading only the two lines' points. (Comparing each line
+ * with the next would let small errors add up along the group.)
+ */
+public class ParallelGroupConstraint implements Constraint {
+    private final List<LineObject> lines;
+    // operands of residual row r: the points of the first line and of line r+1
+    private final int[][] rows;
+
+    public ParallelGroupConstraint(List<LineObject> lines) {
+        if (lines.size() < 2) throw new IllegalArgumentException("a parallel group takes at least 2 lines");
+        this.lines = List.copyOf(lines);
+        this.rows = starRows(lines.size());
+    }
+
+    // row r of a group constraint reads the first line (operands 0, 1) and line r+1
+    static int[][] starRows(int lines) {
+        int[][] rows = new int[lines - 1][];
+        for (int r = 0; r < rows.length; r++) rows[r] = new int[] { 0, 1, 2*r + 2, 2*r + 3 };
+        return rows;
+    }
+
+    // points of each line in turn, start then end
+    static int[] linePoints(List<LineObject> lines) {
+        int[] points = new int[2 * lines.size()];
+        for (int i = 0; i < lines.size(); i++) {
+            points[2*i] = lines.get(i).getStartPoint().getIndex();
+            points[2*i + 1] = lines.get(i).getEndPoint().getIndex();
+        }
+        return points;
+    }
+
+    // the lines other than `line`, or null if fewer than two are left; compared by identity, since
+    // LineObject.equals matches any line with the same endpoints
+    static List<LineObject> without(List<LineObject> lines, LineObject line) {
+        List<LineObject> rest = new ArrayList<>(lines.size());
+        for (LineObject l : lines) {
+            if (l != line) rest.add(l);
+        }
+        return rest.size() < 2 ? null : rest;
+    }
+
+
+    public List<LineObject> lines() {
+        return this.lines;
+    }
+
+    public int[] points() {
+        return linePoints(this.lines);
+    }
+
+    public double apply(double[] xs, double[] ys, int[] at) {
+        // shared direction: (dx + i dy)^2 / |d| is the line's doubled angle with its length as weight
+        double sumC = 0, sumS = 0;
+        for (int i = 0; i < at.length; i += 2) {
+            double dx = xs[at[i+1]] - xs[at[i]], dy = ys[at[i+1]] - ys[at[i]];
+            double len = Math.hypot(dx, dy);
+            if (len == 0) continue;
+            sumC += (dx*dx - dy*dy) / len;
+            sumS += 2*dx*dy / len;
+        }
+        double target = Math.atan2(sumS, sumC) / 2;
+
+        double maxError = 0;
+        for (int i = 0; i < at.length; i += 2) {
+            int p1 = at[i], p2 = at[i+1];
+            double dx = xs[p2] - xs[p1], dy = ys[p2] - ys[p1];
+            double len = Math.hypot(dx, dy);
+            if (len == 0) continue;
+            // the nearer of the two parallel directions, target or target + pi
+            double diff = normalizeAngle(target - Math.atan2(dy, dx));
+            if (diff > Math.PI/2) diff -= Math.PI;
+            if (diff < -Math.PI/2) diff += Math.PI;
+            maxError = Math.max(maxError, len * Math.abs(diff));
+
+            // rotate by half the difference around the midpoint, as the pairwise constraint does
+            double mx = (xs[p1] + xs[p2]) / 2, my = (ys[p1] + ys[p2]) / 2;
+            double c = Math.cos(diff * 0.5), s = Math.sin(diff * 0.5);
+            for (int p : new int[] { p1, p2 }) {
+                double x = xs[p] - mx, y = ys[p] - my;
+                xs[p] = mx + x*c - y*s;
+                ys[p] = my + x*s + y*c;
+            }
+        }
+        return maxError;
+    }
+
+    public int residualCount() {
+        return this.rows.length;
+    }
+
+    public int[] operandsOf(int row) {
+        return this.rows[row];
+    }
+
+    // residual r: line r+1 against the first line, as in ParallelLineConstraint
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return ParallelLineConstraint.residual(xs, ys, at[0], at[1], at[2*row + 2], at[2*row + 3]);
+    }
+
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        ParallelLineConstraint.gradient(xs, ys, at[0], at[1], at[2*row + 2], at[2*row + 3], grad);
+    }
+
+    public Constraint without(LineObject line) {
+        List<LineObject> rest = without(this.lines, line);
+        return rest == null ? null : new ParallelGroupConstraint(rest);
+    }
+
+    // normalize into [-pi, pi]
+    public double normalizeAngle(double angle) {
+        double a = (angle + Math.PI) % (2*Math.PI);
+        if (a < 0) a += 2*Math.PI;
+        return a - Math.PI;
+    }
+}
@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -11,7 +12,6 @@ public class ParallelLineConstraint implements Constraint {
 
     public LineObject base; 
     public LineObject current; 
-    private double error; 
 
     public ParallelLineConstraint(LineObject line1, LineObject line2) {
         this.base = line1; 
@@ -31,50 +31,82 @@ public class ParallelLineConstraint implements Constraint {
         return 0; 
     } 
 
-    public double error() {
-        // double dx1 = this.baseline.getLength();
-        return this.error; 
-    }
 
-    public void apply() {
+    public List<LineObject> lines() {
+        return List.of(this.base, this.current); 
+    } 
+
+    public int[] points() {
+        return new int[] {
+            this.base.getStartPoint().getIndex(), this.base.getEndPoint().getIndex(), 
+            this.current.getStartPoint().getIndex(), this.current.getEndPoint().getIndex() 
+        }; 
+    } 
+
+    public double apply(double[] xs, double[] ys, int[] at) {
         // System.out.println("* Applying PARALLEL constraint *"); 
-        // this.baseline.makeParallelTo(this.current); 
         // get endpoints 
-        PointObject base1 = this.base.getStartPoint(); 
-        PointObject base2 = this.base.getEndPoint(); 
-        PointObject current1 = this.current.getStartPoint(); 
-        PointObject current2 = this.current.getEndPoint(); 
+        int base1 = at[0], base2 = at[1], current1 = at[2], current2 = at[3]; 
 
         // compute midpoints 
-        double currentMX = (current1.getX() + current2.getX()) / 2; 
-        double currentMY = (current1.getY() + current2.getY()) / 2; 
+        double currentMX = (xs[current1] + xs[current2]) / 2; 
+        double currentMY = (ys[current1] + ys[current2]) / 2; 
 
         // measure angles 
-        double baseAngle = Math.atan2(base2.getY()-base1.getY(), base2.getX()-base1.getX()); 
-        double currentAngle = Math.atan2(current2.getY()-current1.getY(), current2.getX()-current1.getX()); 
+        double baseAngle = Math.atan2(ys[base2]-ys[base1], xs[base2]-xs[base1]); 
+        double currentAngle = Math.atan2(ys[current2]-ys[current1], xs[current2]-xs[current1]); 
 
         // two valid parallels 0 or pi 
         double d1 = normalizeAngle(baseAngle - currentAngle); 
         double d2 = normalizeAngle(baseAngle + Math.PI - currentAngle); 
         double diff = (Math.abs(d1) < Math.abs(d2) ? d1 : d2) * 0.5;  // half the diff arbiitrarily  
         // rotation by half the difference 
-        // double diff = 0.5 * (baseAngle - currentAngle); 
         double c = Math.cos(diff); 
         double s = Math.sin(diff); 
 
         // rotate each endpoints of current line around midpoint 
-        for (PointObject p : List.of(current1, current2)) {
-            double x = p.getX() - currentMX, y = p.getY() - currentMY; 
-            double xRotate = x*c - y*s; 
-            double yRotate = x*s + y*c; 
-            p.setX((int) (currentMX + xRotate)); 
-            p.setY((int) (currentMY + yRotate)); 
+        for (int p : new int[] { current1, current2 }) {
+            double x = xs[p] - currentMX, y = ys[p] - currentMY; 
+            xs[p] = currentMX + x*c - y*s; 
+            ys[p] = currentMY + x*s + y*c; 
         } 
 
         // the err is calculated as the component of the current line that is in the direction of `diff` 
-        this.error = Math.abs(this.current.getLength() * Math.abs(diff)); 
+        double currentLen = Math.hypot(xs[current2]-xs[current1], ys[current2]-ys[current1]); 
+        return Math.abs(currentLen * Math.abs(diff)); 
     }
 
+    // residual: offset of the current line's direction perpendicular to the base line, scaled to pixels 
+    // i.e. cross(base, current) / |base| 
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return residual(xs, ys, at[0], at[1], at[2], at[3]); 
+    } 
+
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        gradient(xs, ys, at[0], at[1], at[2], at[3], grad); 
+    } 
+
+    // the residual of line a0-a1 against line b0-b1 (slots), shared with ParallelGroupConstraint 
+    static double residual(double[] xs, double[] ys, int a0, int a1, int b0, int b1) {
+        double ax = xs[a1] - xs[a0], ay = ys[a1] - ys[a0]; 
+        double bx = xs[b1] - xs[b0], by = ys[b1] - ys[b0]; 
+        double la = Math.hypot(ax, ay); 
+        if (la == 0) return 0; 
+        return (ax*by - ay*bx) / la; 
+    } 
+
+    static void gradient(double[] xs, double[] ys, int a0, int a1, int b0, int b1, double[] grad) {
+        double ax = xs[a1] - xs[a0], ay = ys[a1] - ys[a0]; 
+        double bx = xs[b1] - xs[b0], by = ys[b1] - ys[b0]; 
+        double la = Math.hypot(ax, ay); 
+        if (la == 0) { Arrays.fill(grad, 0, 8, 0); return; } 
+        double cross = ax*by - ay*bx, la3 = la*la*la; 
+        double dax = by/la - cross*ax/la3, day = -bx/la - cross*ay/la3; 
+        double dbx = -ay/la, dby = ax/la; 
+        grad[0] = -dax; grad[1] = -day; grad[2] = dax; grad[3] = day; 
+        grad[4] = -dbx; grad[5] = -dby; grad[6] = dbx; grad[7] = dby; 
+    } 
+
     // normalize into [-pi, pi]
     public double normalizeAngle(double angle) {
         double a = (angle + Math.PI) % (2*Math.PI); 
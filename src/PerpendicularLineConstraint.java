@@ -1,3 +1,4 @@
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -11,7 +12,6 @@ public class PerpendicularLineConstraint implements Constraint {
 
     public LineObject base; 
     public LineObject current; 
-    private double error; 
 
     public PerpendicularLineConstraint(LineObject line1, LineObject line2) {
         this.base = line1; 
@@ -31,27 +31,30 @@ public class PerpendicularLineConstraint implements Constraint {
         return 0; 
     } 
 
-    public double error() {
-        // double dx1 = this.baseline.getLength();
-        return this.error; 
-    }
 
-    public void apply() {
-        // System.out.println("* Applying PARALLEL constraint *"); 
-        // this.baseline.makeParallelTo(this.current); 
+    public List<LineObject> lines() {
+        return List.of(this.base, this.current); 
+    } 
+
+    public int[] points() {
+        return new int[] {
+            this.base.getStartPoint().getIndex(), this.base.getEndPoint().getIndex(), 
+            this.current.getStartPoint().getIndex(), this.current.getEndPoint().getIndex() 
+        }; 
+    } 
+
+    public double apply(double[] xs, double[] ys, int[] at) {
+        // System.out.println("* Applying PERPENDICULAR constraint *"); 
         // get endpoints 
-        PointObject base1 = this.base.getStartPoint(); 
-        PointObject base2 = this.base.getEndPoint(); 
-        PointObject current1 = this.current.getStartPoint(); 
-        PointObject current2 = this.current.getEndPoint(); 
+        int base1 = at[0], base2 = at[1], current1 = at[2], current2 = at[3]; 
 
         // compute midpoints 
-        double currentMX = (current1.getX() + current2.getX()) / 2; 
-        double currentMY = (current1.getY() + current2.getY()) / 2; 
+        double currentMX = (xs[current1] + xs[current2]) / 2; 
+        double currentMY = (ys[current1] + ys[current2]) / 2; 
 
         // measure angles 
-        double baseAngle = Math.atan2(base2.getY()-base1.getY(), base2.getX()-base1.getX()); 
-        double currentAngle = Math.atan2(current2.getY()-current1.getY(), current2.getX()-current1.getX()); 
+        double baseAngle = Math.atan2(ys[base2]-ys[base1], xs[base2]-xs[base1]); 
+        double currentAngle = Math.atan2(ys[current2]-ys[current1], xs[current2]-xs[current1]); 
 
         double target1 = baseAngle + Math.PI/2;
         double target2 = baseAngle - Math.PI/2;
@@ -59,28 +62,43 @@ public class PerpendicularLineConstraint implements Constraint {
         double diff2   = normalizeAngle(target2 - currentAngle);
         double diff    = (Math.abs(diff1) < Math.abs(diff2) ? diff1 : diff2); 
 
-        // desired new angle = baseAngle plus 90 degrees 
-        // double targetAngle = baseAngle + Math.PI/2; 
-        // double diff = targetAngle - currentAngle; 
-        // normalize to -pi,pi 
-        // diff = (diff+Math.PI) % (2*Math.PI) - Math.PI; 
         // relaxation: rotate by half the difference 
         double step = diff * 0.5; 
         double s = Math.sin(step), c = Math.cos(step); 
 
         // rotate each endpoints of current line around midpoint 
-        for (PointObject p : List.of(current1, current2)) {
-            double x = p.getX() - currentMX, y = p.getY() - currentMY; 
-            double xRotate = x*c - y*s;
-            double yRotate = x*s + y*c; 
-            p.setX((int) (currentMX + xRotate)); 
-            p.setY((int) (currentMY + yRotate)); 
+        for (int p : new int[] { current1, current2 }) {
+            double x = xs[p] - currentMX, y = ys[p] - currentMY; 
+            xs[p] = currentMX + x*c - y*s; 
+            ys[p] = currentMY + x*s + y*c; 
         } 
 
         // the err is calculated as the component of the current line that is in the direction of `diff` 
-        this.error = Math.abs(this.current.getLength() * Math.abs(diff)); 
+        double currentLen = Math.hypot(xs[current2]-xs[current1], ys[current2]-ys[current1]); 
+        return Math.abs(currentLen * Math.abs(diff)); 
     }
 
+    // residual: component of the current line along the base line, i.e. dot(base, current) / |base| 
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        double ax = xs[at[1]] - xs[at[0]], ay = ys[at[1]] - ys[at[0]]; 
+        double bx = xs[at[3]] - xs[at[2]], by = ys[at[3]] - ys[at[2]]; 
+        double la = Math.hypot(ax, ay); 
+        if (la == 0) return 0; 
+        return (ax*bx + ay*by) / la; 
+    } 
+
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        double ax = xs[at[1]] - xs[at[0]], ay = ys[at[1]] - ys[at[0]]; 
+        double bx = xs[at[3]] - xs[at[2]], by = ys[at[3]] - ys[at[2]]; 
+        double la = Math.hypot(ax, ay); 
+        if (la == 0) { Arrays.fill(grad, 0, 8, 0); return; } 
+        double dot = ax*bx + ay*by, la3 = la*la*la; 
+        double dax = bx/la - dot*ax/la3, day = by/la - dot*ay/la3; 
+        double dbx = ax/la, dby = ay/la; 
+        grad[0] = -dax; grad[1] = -day; grad[2] = dax; grad[3] = day; 
+        grad[4] = -dbx; grad[5] = -dby; grad[6] = dbx; grad[7] = dby; 
+    } 
+
     // normalize into [-pi, pi]
     public double normalizeAngle(double angle) {
         double a = (angle + Math.PI) % (2*Math.PI); 
@@ -0,0 +1,106 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Maintained adjacency between the pieces of a drawing: each PointObject knows the LineObjects
+ * that end at it, and each LineObject knows the constraints that mention it. Deleting, merging
+ * and finding orphaned points then only touches the neighbourhood of the edit instead of
+ * scanning every object.
+ *
+ * Keyed by identity: two lines between the same points are equal() but are still two lines.
+ */
+public class PointAdjacency {
+    private final Map<PointObject, List<LineObject>> linesAtPoint = new IdentityHashMap<>();
+    private final Map<LineObject, List<Constraint>> constraintsOnLine = new IdentityHashMap<>();
+
+    public void addLine(LineObject line) {
+        attach(line.getStartPoint(), line);
+        attach(line.getEndPoint(), line);
+    }
+
+    public void removeLine(LineObject line) {
+        detach(line.getStartPoint(), line);
+        detach(line.getEndPoint(), line);
+        constraintsOnLine.remove(line);
+    }
+
+    // call instead of line.setStartPoint / setEndPoint so the index follows the line
+    public void setStartPoint(LineObject line, PointObject p) {
+        detach(line.getStartPoint(), line);
+        line.setStartPoint(p);
+        attach(p, line);
+    }
+
+    public void setEndPoint(LineObject line, PointObject p) {
+        detach(line.getEndPoint(), line);
+        line.setEndPoint(p);
+        attach(p, line);
+    }
+
+    public void removePoint(PointObject p) {
+        linesAtPoint.remove(p);
+    }
+
+    public void addConstraint(Constraint c, List<LineObject> lines) {
+        for (LineObject line : lines) {
+            List<Constraint> list = constraintsOnLine.computeIfAbsent(line, k -> new ArrayList<>());
+            if (!list.contains(c)) list.add(c);
+        }
+    }
+
+    public void removeConstraint(Constraint c, List<LineObject> lines) {
+        for (LineObject line : lines) {
+            List<Constraint> list = constraintsOnLine.get(line);
+            if (list == null) continue;
+            list.remove(c);
+            if (list.isEmpty()) constraintsOnLine.remove(line);
+        }
+    }
+
+    public List<LineObject> linesAt(PointObject p) {
+        List<LineObject> list = linesAtPoint.get(p);
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    public int degree(PointObject p) {
+        return linesAt(p).size();
+    }
+
+    public List<Constraint> constraintsOn(LineObject line) {
+        List<Constraint> list = constraintsOnLine.get(line);
+        return list == null ? Collections.emptyList() : list;
+    }
+
+    // constraints that move p, through the lines that end at it
+    public List<Constraint> constraintsAt(PointObject p) {
+        List<Constraint> result = new ArrayList<>();
+        for (LineObject line : linesAt(p)) {
+            for (Constraint c : constraintsOn(line)) {
+                if (!result.contains(c)) result.add(c);
+            }
+        }
+        return result;
+    }
+
+    private void attach(PointObject p, LineObject line) {
+        linesAtPoint.computeIfAbsent(p, k -> new ArrayList<>()).add(line);
+    }
+
+    private void detach(PointObject p, LineObject line) {
+        List<LineObject> list = linesAtPoint.get(p);
+        if (list == null) return;
+        // by identity, and only one occurrence: a collapsed line is attached to p twice
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i) == line) {
+                list.remove(i);
+                break;
+            }
+        }
+        if (list.isEmpty()) linesAtPoint.remove(p);
+    }
+}
@@ -1,45 +1,71 @@
 import java.awt.Color;
 import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Junita Sirait - COS583
  * 
- * Point object 
+ * Point object. The coordinates themselves live in a PointStore; a PointObject is a thin 
+ * handle holding the store and the slot index. 
  * 
  */
 public class PointObject extends GeometricObject {
-    private int x,y; 
+    private final PointStore store; 
+    private final int index; 
     private final int id; 
-    private static int counter = 0; 
-    private static final int SIZE = 5; 
+    // points can be created on several threads at once (SketchCli loads files in parallel) 
+    private static final AtomicInteger counter = new AtomicInteger(); 
+    static final int SIZE = 5; 
 
-    public PointObject(int x, int y) {
-        this.x = x;
-        this.y = y; 
-        this.id = counter++; 
+    public PointObject(PointStore store, double x, double y) {
+        this.store = store; 
+        this.index = store.add(x, y); 
+        this.id = counter.getAndIncrement(); 
+    } 
+
+    // handle for a slot that is already filled in (see PointStore.addAll) 
+    public PointObject(PointStore store, int index) {
+        this.store = store; 
+        this.index = index; 
+        this.id = counter.getAndIncrement(); 
     } 
 
     // getters and setters 
-    public int getX() { return x; } 
-    public int getY() { return y; } 
+    public double getX() { return store.getX(index); } 
+    public double getY() { return store.getY(index); } 
     public int getId()  { return this.id; } 
-    public void setX(int x) { this.x = x; } 
-    public void setY(int y) { this.y = y; } 
+    public int getIndex()  { return this.index; } 
+    public PointStore getStore()  { return this.store; } 
+    public void setX(double x) { store.setX(index, x); } 
+    public void setY(double y) { store.setY(index, y); } 
 
     @Override
     public void draw(Graphics2D g2d) {
         g2d.setColor(Color.BLACK);
+        int x = (int) Math.round(getX()), y = (int) Math.round(getY()); 
         g2d.fillOval(x-SIZE/2, y-SIZE/2, SIZE, SIZE);
     }
 
+    @Override
+    public boolean appendTo(RenderBatches.Batch batch) {
+        batch.dot((int) Math.round(getX()), (int) Math.round(getY())); 
+        return true; 
+    }
+
     @Override 
     public boolean contains(int px, int py) {
         int tolerance = 10; 
-        int dx = px - x; 
-        int dy = py - y; 
+        double dx = px - getX(); 
+        double dy = py - getY(); 
         return dx*dx + dy*dy <= tolerance*tolerance; 
     } 
 
+    @Override 
+    public Rectangle2D getBounds() {
+        return new Rectangle2D.Double(getX() - SIZE/2.0, getY() - SIZE/2.0, SIZE, SIZE); 
+    } 
+
     @Override 
     public int hashCode() {
         // return 31 * x + y;  // problem when moving points 
@@ -57,23 +83,21 @@ public class PointObject extends GeometricObject {
 
     @Override 
     public String toString() {
-        return "Point(" + x + ", " + y + ")"; 
+        return "Point(" + getX() + ", " + getY() + ")"; 
     }
 
     public double angleTo(PointObject base) {
-        return Math.atan2((base.y - this.y) * 1.0, (base.x - this.y) * 1.0);
+        return Math.atan2(base.getY() - this.getY(), base.getX() - this.getX());
     }
 
     public void moveTo(PointObject basePoint, double distance, double angle) {
         // to `distance` away from `basePoint` at angle `angle` 
-        this.x = (int) (basePoint.x + Math.cos(angle) * distance); 
-        this.y = (int) (basePoint.x + Math.sin(angle) * distance); 
+        store.set(index, basePoint.getX() + Math.cos(angle) * distance, basePoint.getY() + Math.sin(angle) * distance); 
     }
 
-    public void moveBy(int x, int y) {
+    public void moveBy(double dx, double dy) {
         // translation 
-        this.x += x; 
-        this.y += y; 
+        store.moveBy(index, dx, dy); 
     } 
 
     public void moveOptimally() {
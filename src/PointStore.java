@@ -0,0 +1,104 @@
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Central storage for point coordinates. Coordinates live in two contiguous `double` arrays
+ * (struct-of-arrays) indexed by the point's slot, so PointObject is only a thin handle and
+ * the solver can sweep over the arrays directly instead of chasing one heap object per point.
+ *
+ * Coordinates are kept in double precision; we only round when drawing.
+ *
+ * Slots of removed points are handed back with `free` and reused by the next `add`. Every free
+ * bumps the slot's generation, so a copy taken earlier (see SolveWorkspace) can tell that its slot
+ * has changed hands since.
+ */
+public class PointStore {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private double[] xs;
+    private double[] ys;
+    private int[] generations;
+    private int size = 0;
+    // freed slots, the most recently freed last
+    private int[] free = new int[0];
+    private int freeCount = 0;
+
+    public PointStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PointStore(int capacity) {
+        this.xs = new double[Math.max(capacity, 1)];
+        this.ys = new double[Math.max(capacity, 1)];
+        this.generations = new int[Math.max(capacity, 1)];
+    }
+
+    // allocate a slot, reusing a freed one if there is any, and return its index
+    public int add(double x, double y) {
+        if (freeCount > 0) {
+            int slot = free[--freeCount];
+            xs[slot] = x;
+            ys[slot] = y;
+            return slot;
+        }
+        ensureCapacity(size + 1);
+        xs[size] = x;
+        ys[size] = y;
+        return size++;
+    }
+
+    // give back the slot of a removed point; its coordinates stay readable until it is reused
+    public void free(int i) {
+        generations[i]++;
+        if (freeCount == free.length) free = Arrays.copyOf(free, Math.max(16, 2 * freeCount));
+        free[freeCount++] = i;
+    }
+
+    public int generation(int i) { return generations[i]; }
+
+    // slots in use
+    public int live() { return size - freeCount; }
+
+    // append the next n coordinates of xs and ys (e.g. views of a mapped file) in one copy per
+    // array; returns the slot of the first one
+    public int addAll(DoubleBuffer xs, DoubleBuffer ys, int n) {
+        ensureCapacity(size + n);
+        xs.get(this.xs, size, n);
+        ys.get(this.ys, size, n);
+        int first = size;
+        size += n;
+        return first;
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity <= xs.length) return;
+        int newCapacity = Math.max(capacity, xs.length * 2);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        generations = Arrays.copyOf(generations, newCapacity);
+    }
+
+    // one past the highest slot ever used, freed ones included
+    public int size() { return size; }
+
+    public double getX(int i) { return xs[i]; }
+    public double getY(int i) { return ys[i]; }
+    public void setX(int i, double x) { xs[i] = x; }
+    public void setY(int i, double y) { ys[i] = y; }
+
+    public void set(int i, double x, double y) {
+        xs[i] = x;
+        ys[i] = y;
+    }
+
+    public void moveBy(int i, double dx, double dy) {
+        xs[i] += dx;
+        ys[i] += dy;
+    }
+
+    // raw arrays for the solver -- valid until the next `add` grows the store
+    public double[] xs() { return xs; }
+    public double[] ys() { return ys; }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Welds together points that lie within a threshold of each other, in one near-linear pass.
+ *
+ * Points are hashed into a grid whose cells are as wide as the threshold, so every partner of a
+ * point lies in the 3x3 block of cells around it. Close pairs are joined with union-find, which
+ * also takes care of chains (a close to b close to c). Each cluster keeps its first point, which
+ * the caller moves to the cluster's centroid. For large inputs the pair search runs in parallel;
+ * the unions are applied in a fixed order afterwards, so the result is the same either way.
+ */
+public class PointWelder {
+    // below this many points the parallel pair search is not worth it
+    static final int PARALLEL_THRESHOLD = 50_000;
+
+    /**
+     * Returns survivor[i], the index in `points` of the point that points[i] welds into
+     * (survivor[i] == i for points that stay). Nothing is moved; see `centroids`.
+     */
+    public static int[] clusters(List<PointObject> points, double threshold) {
+        return clusters(points, threshold, points.size() >= PARALLEL_THRESHOLD);
+    }
+
+    // as above, with the pair search run in parallel or not regardless of size
+    static int[] clusters(List<PointObject> points, double threshold, boolean parallel) {
+        int n = points.size();
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = points.get(i).getX();
+            ys[i] = points.get(i).getY();
+        }
+
+        // bucket by cell with an open-addressing table and a counting sort, so there is no boxing;
+        // indices within a cell stay in ascending order
+        CellTable table = new CellTable(n);
+        int[] cellId = new int[n];
+        for (int i = 0; i < n; i++) cellId[i] = table.idOf(key(cell(xs[i], threshold), cell(ys[i], threshold)), true);
+        int[] cellStart = new int[table.size() + 1];
+        for (int i = 0; i < n; i++) cellStart[cellId[i] + 1]++;
+        for (int c = 0; c < table.size(); c++) cellStart[c + 1] += cellStart[c];
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(cellStart, table.size());
+        for (int i = 0; i < n; i++) members[fill[cellId[i]]++] = i;
+
+        // for every point, the higher-numbered partners within the threshold
+        IntStream range = IntStream.range(0, n);
+        if (parallel) range = range.parallel();
+        int[][] partners = range.mapToObj(i -> {
+            int cx = cell(xs[i], threshold), cy = cell(ys[i], threshold);
+            int[] found = null;
+            int count = 0;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int c = table.idOf(key(cx + dx, cy + dy), false);
+                    if (c < 0) continue;
+                    for (int m = cellStart[c]; m < cellStart[c + 1]; m++) {
+                        int j = members[m];
+                        if (j <= i || Math.hypot(xs[i] - xs[j], ys[i] - ys[j]) >= threshold) continue;
+                        if (found == null) found = new int[4];
+                        else if (count == found.length) found = Arrays.copyOf(found, count * 2);
+                        found[count++] = j;
+                    }
+                }
+            }
+            return count == 0 ? null : Arrays.copyOf(found, count);
+        }).toArray(int[][]::new);
+
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) parent[i] = i;
+        for (int i = 0; i < n; i++) {
+            if (partners[i] == null) continue;
+            for (int j : partners[i]) union(parent, i, j);
+        }
+
+        // roots are the smallest index of their cluster
+        int[] survivor = new int[n];
+        for (int i = 0; i < n; i++) survivor[i] = find(parent, i);
+        return survivor;
+    }
+
+    // centroids[i] = {x, y} of the cluster kept by survivor i, or null where nothing welds into i
+    public static double[][] centroids(List<PointObject> points, int[] survivor) {
+        int n = survivor.length;
+        double[] sumX = new double[n], sumY = new double[n];
+        int[] count = new int[n];
+        for (int i = 0; i < n; i++) {
+            sumX[survivor[i]] += points.get(i).getX();
+            sumY[survivor[i]] += points.get(i).getY();
+            count[survivor[i]]++;
+        }
+        double[][] centroids = new double[n][];
+        for (int i = 0; i < n; i++) {
+            if (count[i] > 1) centroids[i] = new double[] { sumX[i] / count[i], sumY[i] / count[i] };
+        }
+        return centroids;
+    }
+
+    // cell key -> dense cell id; lookups are read-only once all points are added
+    private static class CellTable {
+        private final long[] keys;
+        private final int[] ids;
+        private final int mask;
+        private int size = 0;
+
+        CellTable(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(expected, 4) * 2) * 2;
+            keys = new long[capacity];
+            ids = new int[capacity];
+            Arrays.fill(ids, -1);
+            mask = capacity - 1;
+        }
+
+        int size() { return size; }
+
+        int idOf(long key, boolean insert) {
+            int h = (int) (key ^ (key >>> 29)) * 0x9E3779B1;
+            for (int i = h & mask; ; i = (i + 1) & mask) {
+                if (ids[i] < 0) {
+                    if (!insert) return -1;
+                    keys[i] = key;
+                    ids[i] = size;
+                    return size++;
+                }
+                if (keys[i] == key) return ids[i];
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra == rb) return;
+        if (ra < rb) parent[rb] = ra;
+        else parent[ra] = rb;
+    }
+
+    private static int cell(double v, double size) {
+        return (int) Math.floor(v / size);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) ^ (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,396 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Arc2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Render pipeline that draws the drawing as a few big paths instead of one Java2D call per object.
+ *
+ * Objects are grouped into square tiles by where they sit. Each tile keeps the raw geometry of its
+ * objects (segments, arcs and point positions), collected the first time it is painted and again
+ * only after one of its objects is added, removed or moved. From that it builds one stroked path
+ * for the scale it is painted at, so all of a tile's lines and arcs cost a single draw call. Point
+ * dots are not put in a path: filling one path made of thousands of tiny ovals is far slower than
+ * drawing them separately, so each dot is stamped from a small image rendered once per zoom level.
+ * Objects that cannot be batched (group instances) are drawn one by one as before.
+ *
+ * Only the tiles that reach into the painted area are looked at. Zoomed out, detail that would
+ * not show is dropped: point dots below POINT_MIN_SCALE, segments snapped to device pixels with
+ * duplicates removed, and arcs drawn as just enough chords to stay within half a pixel.
+ *
+ * Everything is drawn in black, so batching does not change how overlapping objects look.
+ */
+public class RenderBatches {
+    private static final double TILE_SIZE = 256;
+    // below this scale the simplified (level of detail) paths are used
+    private static final double LOD_SCALE = 1.0;
+    // below this scale a point dot is under two pixels wide and is not drawn
+    private static final double POINT_MIN_SCALE = 0.4;
+
+    private final Map<Long, Tile> tiles = new HashMap<>();
+    // object -> key of the tile it is batched in
+    private final Map<GeometricObject, Long> homes = new IdentityHashMap<>();
+    // how many tiles have each reach (see Tile.reach); the largest bounds the culling lookup
+    private final TreeMap<Double, Integer> reaches = new TreeMap<>();
+    // the point glyph at the scale it was last painted at
+    private BufferedImage dotSprite = null;
+    private double dotScale = 0;
+
+    // what an object adds to its tile's batch
+    public static class Batch {
+        private double[] segments = new double[16];
+        private int segmentCount = 0;
+        private final List<double[]> arcs = new ArrayList<>();
+        private int[] dots = new int[16];
+        private int dotCount = 0;
+
+        public void line(double x1, double y1, double x2, double y2) {
+            if (4 * segmentCount + 4 > segments.length) segments = Arrays.copyOf(segments, segments.length * 2);
+            int k = 4 * segmentCount++;
+            segments[k] = x1;
+            segments[k + 1] = y1;
+            segments[k + 2] = x2;
+            segments[k + 3] = y2;
+        }
+
+        // same arguments as Graphics.drawArc
+        public void arc(double x, double y, double width, double height, double startAngle, double arcAngle) {
+            arcs.add(new double[] { x, y, width, height, startAngle, arcAngle });
+        }
+
+        // a point glyph centred at (x, y)
+        public void dot(int x, int y) {
+            if (2 * dotCount + 2 > dots.length) dots = Arrays.copyOf(dots, dots.length * 2);
+            dots[2 * dotCount] = x;
+            dots[2 * dotCount + 1] = y;
+            dotCount++;
+        }
+    }
+
+    private static class Tile {
+        final int tx, ty;
+        final List<GeometricObject> objects = new ArrayList<>();
+        final Map<GeometricObject, Integer> positions = new IdentityHashMap<>();
+        final List<GeometricObject> loose = new ArrayList<>();
+        Batch batch;
+        // extent of everything in the tile as of the last rebuild; objects may reach past the tile
+        Rectangle2D bounds;
+        boolean dirty = true;
+        // the stroked path for the scale it was built at
+        Path2D.Double path;
+        double pathScale = 0;
+        // how far (in drawing coordinates) its objects stick out of the tile: exact after a rebuild,
+        // raised in between as objects come in or grow, so culling can still find them
+        double reach = 0;
+
+        Tile(int tx, int ty) {
+            this.tx = tx;
+            this.ty = ty;
+        }
+
+        void add(GeometricObject obj) {
+            positions.put(obj, objects.size());
+            objects.add(obj);
+            dirty = true;
+        }
+
+        void remove(GeometricObject obj) {
+            Integer position = positions.remove(obj);
+            if (position == null) return;
+            GeometricObject last = objects.remove(objects.size() - 1);
+            if (last != obj) {
+                objects.set(position, last);
+                positions.put(last, position);
+            }
+            dirty = true;
+        }
+
+        void rebuild() {
+            batch = new Batch();
+            loose.clear();
+            bounds = null;
+            reach = 0;
+            for (GeometricObject obj : objects) {
+                if (!obj.appendTo(batch)) loose.add(obj);
+                Rectangle2D b = obj.getBounds();
+                reach = Math.max(reach, overhang(b, tx, ty));
+                if (bounds == null) bounds = new Rectangle2D.Double(b.getX(), b.getY(), b.getWidth(), b.getHeight());
+                else bounds.add(b);
+            }
+            // pad so that a flat (horizontal or vertical) tile still intersects
+            if (bounds != null) bounds.setRect(bounds.getX() - 1, bounds.getY() - 1, bounds.getWidth() + 2, bounds.getHeight() + 2);
+            path = null;
+            dirty = false;
+        }
+
+        Path2D.Double path(double scale) {
+            if (path == null || pathScale != scale) {
+                path = scale < LOD_SCALE ? simplifiedPath(batch, scale) : exactPath(batch);
+                pathScale = scale;
+            }
+            return path;
+        }
+    }
+
+    public int size() { return homes.size(); }
+
+    public void add(GeometricObject obj) {
+        if (homes.containsKey(obj)) return;
+        Rectangle2D b = obj.getBounds();
+        int tx = tile(b.getCenterX()), ty = tile(b.getCenterY());
+        long key = key(tx, ty);
+        homes.put(obj, key);
+        Tile tile = tiles.get(key);
+        if (tile == null) {
+            tile = new Tile(tx, ty);
+            tiles.put(key, tile);
+            countReach(tile.reach, 1);
+        }
+        tile.add(obj);
+        raiseReach(tile, overhang(b, tx, ty));
+    }
+
+    public void remove(GeometricObject obj) {
+        Long key = homes.remove(obj);
+        if (key == null) return;
+        Tile tile = tiles.get(key);
+        tile.remove(obj);
+        // the tile's reach can only shrink, which its next rebuild works out
+        if (tile.objects.isEmpty()) {
+            tiles.remove(key);
+            countReach(tile.reach, -1);
+        }
+    }
+
+    // the object's geometry changed: rebuild its tile, moving it to another tile if it left this one
+    public void update(GeometricObject obj) {
+        Long key = homes.get(obj);
+        if (key == null) return;
+        long now = homeOf(obj);
+        if (now == key) {
+            Tile tile = tiles.get(key);
+            tile.dirty = true;
+            raiseReach(tile, overhang(obj.getBounds(), tile.tx, tile.ty));
+            return;
+        }
+        remove(obj);
+        add(obj);
+    }
+
+    // a point moved, and with it the lines that end at it
+    public void pointMoved(PointObject p, List<LineObject> lines) {
+        update(p);
+        for (LineObject line : lines) update(line);
+    }
+
+    // draw every tile that reaches into `area` (drawing coordinates)
+    public void paint(Graphics2D g2d, Rectangle2D area) {
+        snapshot(area, g2d.getTransform().getScaleX()).paint(g2d);
+    }
+
+    // everything needed to draw `area` at `scale`, collected now (on the EDT) so it can be drawn
+    // later on another thread; paths and dot arrays are replaced on rebuild, never modified
+    public Snapshot snapshot(Rectangle2D area, double scale) {
+        Snapshot snapshot = new Snapshot(scale < POINT_MIN_SCALE ? null : dotSprite(scale));
+        for (Tile tile : tilesIn(area)) {
+            snapshot.paths.add(tile.path(scale));
+            snapshot.loose.addAll(tile.loose);
+            if (tile.batch.dotCount == 0) continue;
+            snapshot.dots.add(tile.batch.dots);
+            snapshot.dotCounts.add(tile.batch.dotCount);
+        }
+        return snapshot;
+    }
+
+    public static class Snapshot {
+        private final List<Path2D> paths = new ArrayList<>();
+        // group instances read their prototype while drawing
+        private final List<GeometricObject> loose = new ArrayList<>();
+        private final List<int[]> dots = new ArrayList<>();
+        private final List<Integer> dotCounts = new ArrayList<>();
+        private final BufferedImage sprite;
+
+        private Snapshot(BufferedImage sprite) {
+            this.sprite = sprite;
+        }
+
+        public void paint(Graphics2D g2d) {
+            g2d.setColor(Color.BLACK);
+            for (Path2D path : paths) g2d.draw(path);
+            for (GeometricObject obj : loose) {
+                obj.draw(g2d);
+                g2d.setColor(Color.BLACK);
+            }
+            if (sprite == null) return;
+
+            // stamp the dots in device space, where the sprite is already at the right size
+            AffineTransform at = g2d.getTransform();
+            double scale = at.getScaleX();
+            int offset = (sprite.getWidth() - 1) / 2;
+            g2d.setTransform(new AffineTransform());
+            for (int t = 0; t < dots.size(); t++) {
+                int[] xy = dots.get(t);
+                for (int i = 0; i < dotCounts.get(t); i++) {
+                    int x = (int) Math.round(xy[2*i] * scale + at.getTranslateX());
+                    int y = (int) Math.round(xy[2*i + 1] * scale + at.getTranslateY());
+                    g2d.drawImage(sprite, x - offset, y - offset, null);
+                }
+            }
+            g2d.setTransform(at);
+        }
+    }
+
+    // tiles (rebuilt if needed) whose contents overlap the area; only the tiles that can reach
+    // it are looked up, unless that range holds more keys than there are tiles
+    private List<Tile> tilesIn(Rectangle2D area) {
+        double reach = reaches.isEmpty() ? 0 : reaches.lastKey();
+        int tx0 = tile(area.getMinX() - reach), ty0 = tile(area.getMinY() - reach);
+        int tx1 = tile(area.getMaxX() + reach), ty1 = tile(area.getMaxY() + reach);
+        List<Tile> candidates;
+        if ((long) (tx1 - tx0 + 1) * (ty1 - ty0 + 1) > tiles.size()) {
+            candidates = new ArrayList<>(tiles.values());
+        } else {
+            candidates = new ArrayList<>();
+            for (int tx = tx0; tx <= tx1; tx++) {
+                for (int ty = ty0; ty <= ty1; ty++) {
+                    Tile tile = tiles.get(key(tx, ty));
+                    if (tile != null) candidates.add(tile);
+                }
+            }
+        }
+        List<Tile> visible = new ArrayList<>();
+        for (Tile tile : candidates) {
+            if (tile.dirty) {
+                double before = tile.reach;
+                tile.rebuild();
+                countReach(before, -1);
+                countReach(tile.reach, 1);
+            }
+            if (tile.bounds != null && tile.bounds.intersects(area)) visible.add(tile);
+        }
+        return visible;
+    }
+
+    private static Path2D.Double exactPath(Batch batch) {
+        Path2D.Double path = new Path2D.Double(Path2D.WIND_NON_ZERO, Math.max(2 * batch.segmentCount, 16));
+        double[] s = batch.segments;
+        for (int k = 0; k < 4 * batch.segmentCount; k += 4) {
+            path.moveTo(s[k], s[k + 1]);
+            path.lineTo(s[k + 2], s[k + 3]);
+        }
+        for (double[] a : batch.arcs) {
+            path.append(new Arc2D.Double(a[0], a[1], a[2], a[3], a[4], a[5], Arc2D.OPEN), false);
+        }
+        return path;
+    }
+
+    // segments with their ends snapped to device pixels, each distinct one once; arcs as chords
+    private static Path2D.Double simplifiedPath(Batch batch, double scale) {
+        Path2D.Double path = new Path2D.Double();
+        Set<Long> seen = new HashSet<>();
+        double[] s = batch.segments;
+        for (int k = 0; k < 4 * batch.segmentCount; k += 4) {
+            int x1 = pixel(s[k], scale), y1 = pixel(s[k + 1], scale);
+            int x2 = pixel(s[k + 2], scale), y2 = pixel(s[k + 3], scale);
+            if (x2 < x1 || (x2 == x1 && y2 < y1)) {
+                int t = x1; x1 = x2; x2 = t;
+                t = y1; y1 = y2; y2 = t;
+            }
+            if (fits16(x1) && fits16(y1) && fits16(x2) && fits16(y2)) {
+                long key = ((long) (x1 & 0xffff) << 48) | ((long) (y1 & 0xffff) << 32) | ((long) (x2 & 0xffff) << 16) | (y2 & 0xffff);
+                if (!seen.add(key)) continue;
+            }
+            // back to drawing coordinates at pixel centres; a collapsed segment still covers its pixel
+            path.moveTo((x1 + 0.5) / scale, (y1 + 0.5) / scale);
+            if (x1 == x2 && y1 == y2) path.lineTo((x1 + 1) / scale, (y1 + 0.5) / scale);
+            else path.lineTo((x2 + 0.5) / scale, (y2 + 0.5) / scale);
+        }
+        for (double[] a : batch.arcs) appendChords(path, a, scale);
+        return path;
+    }
+
+    // the arc as the fewest chords that stay within half a device pixel of it
+    private static void appendChords(Path2D.Double path, double[] a, double scale) {
+        double rx = a[2] / 2, ry = a[3] / 2;
+        double cx = a[0] + rx, cy = a[1] + ry;
+        double r = Math.max(rx, ry) * scale;
+        double step = r <= 0.5 ? Math.PI : 2 * Math.acos(1 - 0.5 / r);
+        double sweep = Math.toRadians(a[5]);
+        int n = Math.max(1, (int) Math.ceil(Math.abs(sweep) / step));
+        double start = Math.toRadians(a[4]);
+        // drawArc angles run counter-clockwise with y pointing down
+        path.moveTo(cx + rx * Math.cos(start), cy - ry * Math.sin(start));
+        for (int i = 1; i <= n; i++) {
+            double t = start + sweep * i / n;
+            path.lineTo(cx + rx * Math.cos(t), cy - ry * Math.sin(t));
+        }
+    }
+
+    // a point dot as PointObject.draw renders it, scaled, centred in an odd-sized image
+    private BufferedImage dotSprite(double scale) {
+        if (dotSprite != null && dotScale == scale) return dotSprite;
+        int half = (int) Math.ceil(PointObject.SIZE * scale / 2) + 1;
+        BufferedImage sprite = new BufferedImage(2*half + 1, 2*half + 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D sg = sprite.createGraphics();
+        sg.setColor(Color.BLACK);
+        sg.translate(half, half);
+        sg.scale(scale, scale);
+        sg.fillOval(-PointObject.SIZE/2, -PointObject.SIZE/2, PointObject.SIZE, PointObject.SIZE);
+        sg.dispose();
+        dotSprite = sprite;
+        dotScale = scale;
+        return sprite;
+    }
+
+    private long homeOf(GeometricObject obj) {
+        Rectangle2D b = obj.getBounds();
+        return key(tile(b.getCenterX()), tile(b.getCenterY()));
+    }
+
+    private void raiseReach(Tile tile, double reach) {
+        if (reach <= tile.reach) return;
+        countReach(tile.reach, -1);
+        tile.reach = reach;
+        countReach(reach, 1);
+    }
+
+    private void countReach(double reach, int delta) {
+        reaches.merge(reach, delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    // how far the bounds stick out of tile (tx, ty)
+    private static double overhang(Rectangle2D b, int tx, int ty) {
+        return Math.max(Math.max(tx * TILE_SIZE - b.getMinX(), b.getMaxX() - (tx + 1) * TILE_SIZE),
+                        Math.max(ty * TILE_SIZE - b.getMinY(), b.getMaxY() - (ty + 1) * TILE_SIZE));
+    }
+
+    private static int tile(double v) {
+        return (int) Math.floor(v / TILE_SIZE);
+    }
+
+    private static int pixel(double v, double scale) {
+        return (int) Math.floor(v * scale);
+    }
+
+    private static boolean fits16(int v) {
+        return v >= Short.MIN_VALUE && v <= Short.MAX_VALUE;
+    }
+
+    private static long key(int tx, int ty) {
+        return ((long) tx << 32) ^ (ty & 0xffffffffL);
+    }
+}
@@ -0,0 +1,226 @@
+import java.awt.Component;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Records an editing session on a DrawingCanvas -- mode changes, solver settings and every mouse
+ * event, with when they happened -- to a compact file (".skr") that SessionReplay plays back.
+ *
+ *   header   int magic "SKRC", int version, int canvas width, int canvas height
+ *   steps    byte kind, varlong nanoseconds since the previous step, then by kind:
+ *              MODE / SOLVER   UTF enum name
+ *              LIVE_DRAG       boolean
+ *              MOUSE           byte id - MOUSE_FIRST, varint dx, varint dy (from the previous
+ *                              mouse event), byte button, varint modifiersEx, byte clickCount,
+ *                              and double precise rotation for wheel events
+ *
+ * Varints are zigzag LEB128, so the small moves between consecutive mouse events take one byte
+ * each and a mouse event is about eight bytes. The recorder is written to from the event thread;
+ * if the file cannot be written it reports it once and stops recording, the session goes on.
+ */
+public class SessionRecorder implements Closeable {
+    private static final int MAGIC = 0x53_4B_52_43;  // "SKRC"
+    public static final int VERSION = 1;
+
+    static final byte MODE = 1, SOLVER = 2, LIVE_DRAG = 3, MOUSE = 4;
+
+    private final Path file;
+    private final DataOutputStream out;
+    private long lastNanos;
+    private boolean started = false;
+    private int lastX = 0, lastY = 0;
+    private boolean failed = false;
+
+    public SessionRecorder(Path file, int width, int height) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(width);
+        out.writeInt(height);
+    }
+
+    public void mode(DrawingCanvas.Mode mode, long nanos) {
+        try {
+            step(MODE, nanos);
+            out.writeUTF(mode.name());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void solver(ConstraintSolverManager.SolverMode mode, long nanos) {
+        try {
+            step(SOLVER, nanos);
+            out.writeUTF(mode.name());
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    public void liveDrag(boolean live, long nanos) {
+        try {
+            step(LIVE_DRAG, nanos);
+            out.writeBoolean(live);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    // each step is recorded with the time it happened at, from the canvas's clock (System.nanoTime
+    // unless it is itself replaying)
+    public void mouse(MouseEvent e, long nanos) {
+        try {
+            step(MOUSE, nanos);
+            out.writeByte(e.getID() - MouseEvent.MOUSE_FIRST);
+            writeVarLong(out, e.getX() - lastX);
+            writeVarLong(out, e.getY() - lastY);
+            lastX = e.getX();
+            lastY = e.getY();
+            out.writeByte(e.getButton());
+            writeVarLong(out, e.getModifiersEx());
+            out.writeByte(e.getClickCount());
+            if (e instanceof MouseWheelEvent) out.writeDouble(((MouseWheelEvent) e).getPreciseWheelRotation());
+        } catch (IOException e2) {
+            fail(e2);
+        }
+    }
+
+    private void step(byte kind, long nanos) throws IOException {
+        if (failed) throw new IOException("recording stopped");
+        out.writeByte(kind);
+        // the recording starts at its first step
+        if (!started) {
+            lastNanos = nanos;
+            started = true;
+        }
+        writeVarLong(out, Math.max(0, nanos - lastNanos));
+        lastNanos = Math.max(lastNanos, nanos);
+    }
+
+    private void fail(IOException e) {
+        if (failed) return;
+        failed = true;
+        System.err.println("session recording to " + file + " stopped: " + e.getMessage());
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    /**
+     * READING
+     */
+    // one recorded step; `nanos` counts from the start of the recording
+    public static class Step {
+        public final byte kind;
+        public final long nanos;
+        // MODE / SOLVER / LIVE_DRAG
+        public String name;
+        public boolean live;
+        // MOUSE
+        public int id, x, y, button, modifiersEx, clickCount;
+        public double wheelRotation;
+
+        Step(byte kind, long nanos) {
+            this.kind = kind;
+            this.nanos = nanos;
+        }
+
+        public MouseEvent toEvent(Component source) {
+            long when = nanos / 1_000_000;
+            if (id == MouseEvent.MOUSE_WHEEL) {
+                return new MouseWheelEvent(source, id, when, modifiersEx, x, y, x, y, clickCount, false,
+                                           MouseWheelEvent.WHEEL_UNIT_SCROLL, 3, (int) wheelRotation, wheelRotation);
+            }
+            return new MouseEvent(source, id, when, modifiersEx, x, y, clickCount, false, button);
+        }
+    }
+
+    public static class Recording {
+        public final int width, height;
+        public final List<Step> steps = new ArrayList<>();
+
+        Recording(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    public static Recording read(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) throw new IOException(file + ": not a session recording");
+            int version = in.readInt();
+            if (version != VERSION) throw new IOException(file + ": unsupported recording version " + version);
+            Recording recording = new Recording(in.readInt(), in.readInt());
+            long nanos = 0;
+            int x = 0, y = 0;
+            while (true) {
+                int kind = in.read();
+                if (kind < 0) break;
+                try {
+                    nanos += readVarLong(in);
+                    Step step = new Step((byte) kind, nanos);
+                    switch (step.kind) {
+                        case MODE:
+                        case SOLVER:
+                            step.name = in.readUTF();
+                            break;
+                        case LIVE_DRAG:
+                            step.live = in.readBoolean();
+                            break;
+                        case MOUSE:
+                            step.id = MouseEvent.MOUSE_FIRST + in.readUnsignedByte();
+                            step.x = x += (int) readVarLong(in);
+                            step.y = y += (int) readVarLong(in);
+                            step.button = in.readUnsignedByte();
+                            step.modifiersEx = (int) readVarLong(in);
+                            step.clickCount = in.readUnsignedByte();
+                            if (step.id == MouseEvent.MOUSE_WHEEL) step.wheelRotation = in.readDouble();
+                            break;
+                        default:
+                            throw new IOException(file + ": bad step kind " + kind);
+                    }
+                    recording.steps.add(step);
+                } catch (EOFException e) {
+                    // the application died while writing: keep the steps that are complete
+                    break;
+                }
+            }
+            return recording;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long v) throws IOException {
+        long zigzag = (v << 1) ^ (v >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.readUnsignedByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+}
@@ -0,0 +1,240 @@
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.SwingUtilities;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Plays a session recorded by SessionRecorder back through a DrawingCanvas without a display:
+ *
+ *   java -Djava.awt.headless=true -cp out SessionReplay [-n runs] [--no-paint] [--expect checksum] session.skr
+ *
+ * Every step goes through the same canvas handlers as in the application, on the event thread,
+ * followed by a paint into an offscreen image (unless --no-paint). To make runs repeatable,
+ * solving is synchronous, each live-drag step is solved to the end instead of within a time
+ * budget, and flick detection sees the recorded event times. Each run starts from an empty canvas
+ * and reports its total time, time and allocated bytes per kind of step, and a checksum of the
+ * final drawing. The exit status is 3 if runs disagree on the checksum and 2 if it differs from
+ * --expect, so a recorded session can serve as a regression test.
+ */
+public class SessionReplay {
+    private static class Stats {
+        final LatencyHistogram latency = new LatencyHistogram();
+        long allocated = 0;
+    }
+
+    private static class Run {
+        long nanos, allocated, checksum;
+        int points, lines, arcs, constraints;
+        final Map<String, Stats> steps = new LinkedHashMap<>();
+        final Stats all = new Stats();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 1;
+        boolean paint = true;
+        Long expect = null;
+        Path file = null;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-n": runs = Integer.parseInt(args[++i]); break;
+                case "--no-paint": paint = false; break;
+                case "--expect": expect = Long.parseUnsignedLong(args[++i], 16); break;
+                default: file = Paths.get(args[i]);
+            }
+        }
+        if (file == null) {
+            System.err.println("usage: SessionReplay [-n runs] [--no-paint] [--expect checksum] session.skr");
+            System.exit(1);
+        }
+        SessionRecorder.Recording recording;
+        try {
+            recording = SessionRecorder.read(file);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+            return;
+        }
+        long recorded = recording.steps.isEmpty() ? 0 : recording.steps.get(recording.steps.size() - 1).nanos;
+        System.out.printf("%s: %d steps over %.1f s, %dx%d%n", file, recording.steps.size(), recorded / 1e9,
+                          recording.width, recording.height);
+
+        PrintStream console = System.out;
+        Run last = null;
+        boolean consistent = true;
+        for (int r = 1; r <= runs; r++) {
+            // the canvas reports what it is doing on stdout; that is not what we are measuring
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+            Run run;
+            try {
+                run = replay(recording, paint);
+            } finally {
+                System.setOut(console);
+            }
+            System.out.printf("run %d: %.1f ms, %.1f MB allocated, checksum %016x%n", r, run.nanos / 1e6,
+                              run.allocated / 1e6, run.checksum);
+            if (last != null && last.checksum != run.checksum) consistent = false;
+            last = run;
+        }
+        if (last == null) return;
+
+        System.out.println("per step (last run):");
+        for (Map.Entry<String, Stats> e : last.steps.entrySet()) print(e.getKey(), e.getValue());
+        print("all", last.all);
+        System.out.printf("drawing: %d points, %d lines, %d arcs, %d constraints%n", last.points, last.lines,
+                          last.arcs, last.constraints);
+        if (!consistent) {
+            System.out.println("runs ended in different drawings");
+            System.exit(3);
+        }
+        if (expect != null && expect != last.checksum) {
+            System.out.printf("checksum %016x, expected %016x%n", last.checksum, expect);
+            System.exit(2);
+        }
+    }
+
+    private static void print(String name, Stats stats) {
+        LatencyHistogram h = stats.latency;
+        System.out.printf("  %-10s %8d  p50 %8.3f ms  p99 %8.3f ms  max %8.3f ms  %10.1f KB/step%n", name, h.count(),
+                          h.percentile(0.5) / 1e6, h.percentile(0.99) / 1e6, h.max() / 1e6,
+                          h.count() == 0 ? 0 : stats.allocated / 1e3 / h.count());
+    }
+
+    // one run on a fresh canvas, on the event thread like the real thing
+    private static Run replay(SessionRecorder.Recording recording, boolean paint) throws Exception {
+        Run[] result = new Run[1];
+        SwingUtilities.invokeAndWait(() -> result[0] = run(recording, paint));
+        return result[0];
+    }
+
+    private static Run run(SessionRecorder.Recording recording, boolean paint) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        DrawingCanvas canvas = new DrawingCanvas();
+        canvas.setSize(recording.width, recording.height);
+        canvas.setAsyncSolving(false);
+        canvas.getEngine().setLiveDragBudgetMicros(0);
+        long[] now = new long[1];
+        canvas.setEventClock(() -> now[0]);
+        BufferedImage image = paint ? new BufferedImage(recording.width, recording.height, BufferedImage.TYPE_INT_ARGB) : null;
+
+        Run run = new Run();
+        long start = System.nanoTime();
+        long startAllocated = threads.getThreadAllocatedBytes(thread);
+        for (SessionRecorder.Step step : recording.steps) {
+            now[0] = step.nanos;
+            long allocated = threads.getThreadAllocatedBytes(thread);
+            long t0 = System.nanoTime();
+            String name = apply(canvas, step);
+            if (paint) {
+                Graphics2D g = image.createGraphics();
+                canvas.paintComponent(g);
+                g.dispose();
+            }
+            long nanos = System.nanoTime() - t0;
+            allocated = threads.getThreadAllocatedBytes(thread) - allocated;
+            Stats stats = run.steps.computeIfAbsent(name, k -> new Stats());
+            stats.latency.record(nanos);
+            stats.allocated += allocated;
+            run.all.latency.record(nanos);
+            run.all.allocated += allocated;
+        }
+        run.nanos = System.nanoTime() - start;
+        run.allocated = threads.getThreadAllocatedBytes(thread) - startAllocated;
+
+        SketchEngine engine = canvas.getEngine();
+        run.checksum = checksum(engine);
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof PointObject) run.points++;
+            else if (obj instanceof LineObject) run.lines++;
+            else if (obj instanceof ArcObject) run.arcs++;
+        }
+        run.constraints = engine.getConstraints().size();
+        return run;
+    }
+
+    // hand one step to the canvas; returns the kind of step for the report
+    private static String apply(DrawingCanvas canvas, SessionRecorder.Step step) {
+        switch (step.kind) {
+            case SessionRecorder.MODE:
+                canvas.setMode(DrawingCanvas.Mode.valueOf(step.name));
+                return "mode";
+            case SessionRecorder.SOLVER:
+                canvas.setSolverMode(ConstraintSolverManager.SolverMode.valueOf(step.name));
+                return "solver";
+            case SessionRecorder.LIVE_DRAG:
+                canvas.setLiveDrag(step.live);
+                return "live drag";
+            default:
+                break;
+        }
+        MouseEvent e = step.toEvent(canvas);
+        switch (e.getID()) {
+            case MouseEvent.MOUSE_PRESSED: canvas.mousePressed(e); return "pressed";
+            case MouseEvent.MOUSE_RELEASED: canvas.mouseReleased(e); return "released";
+            case MouseEvent.MOUSE_DRAGGED: canvas.mouseDragged(e); return "dragged";
+            case MouseEvent.MOUSE_MOVED: canvas.mouseMoved(e); return "moved";
+            case MouseEvent.MOUSE_WHEEL: canvas.mouseWheelMoved((MouseWheelEvent) e); return "wheel";
+            default: return "other";
+        }
+    }
+
+    // FNV-1a over the exact coordinates, the lines' and arcs' geometry and the constraints; the
+    // constraint set has no fixed order, so each constraint is hashed on its own and the hashes
+    // are sorted first
+    public static long checksum(SketchEngine engine) {
+        long hash = 0xcbf29ce484222325L;
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof PointObject) {
+                PointObject p = (PointObject) obj;
+                hash = mix(hash, 1);
+                hash = mix(hash, Double.doubleToLongBits(p.getX()));
+                hash = mix(hash, Double.doubleToLongBits(p.getY()));
+            } else if (obj instanceof LineObject) {
+                LineObject line = (LineObject) obj;
+                hash = mix(hash, 2);
+                hash = mix(hash, engine.indexOf(line.getStartPoint()));
+                hash = mix(hash, engine.indexOf(line.getEndPoint()));
+            } else if (obj instanceof ArcObject) {
+                ArcObject arc = (ArcObject) obj;
+                hash = mix(hash, 3);
+                for (int v : new int[] { arc.getX(), arc.getY(), arc.getWidth(), arc.getHeight(),
+                                         arc.getStartAngle(), arc.getArcAngle() }) {
+                    hash = mix(hash, v);
+                }
+            }
+        }
+        List<Long> constraints = new ArrayList<>();
+        for (Constraint c : engine.getConstraints()) {
+            long h = mix(0xcbf29ce484222325L, c.getClass().getSimpleName().hashCode());
+            for (LineObject line : c.lines()) h = mix(h, engine.indexOf(line));
+            constraints.add(h);
+        }
+        long[] sorted = constraints.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        for (long h : sorted) hash = mix(hash, h);
+        return hash;
+    }
+
+    private static long mix(long hash, long value) {
+        for (int i = 0; i < 8; i++) {
+            hash ^= (value >>> (8 * i)) & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
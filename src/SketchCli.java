@@ -0,0 +1,142 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Batch solver without a display:
+ *
+ *   java -cp out SketchCli [-o outdir] [-f .ext] [-j threads] [--solver newton|relaxation]
+ *                          [--schedule sweep|worklist|colored|jacobi] [--merge] [--metrics] file...
+ *
+ * Every file is loaded into its own SketchEngine, optionally has its close points merged, and is
+ * solved; with -o the solved drawing is written to outdir under the same name, or converted to the
+ * format with extension .ext (e.g. -f .svg) when -f is given. Files are solved
+ * in parallel, and the solver's own per-component tasks run on the same pool, so a few large
+ * sketches still use every core. Prints one report line per file and exits with 1 if a file
+ * could not be read or written, 2 if a sketch did not converge, 0 otherwise. --schedule picks the
+ * order relaxation applies constraints in (see ConstraintSolverManager; jacobi is experimental).
+ * --metrics turns on SolverMetrics and prints its totals (time per constraint type and so on) at
+ * the end.
+ */
+public class SketchCli {
+    private static class Result {
+        final Path file;
+        int objects, constraints, components, converged, iterations;
+        double maxError;
+        long millis;
+        String failure = null;
+
+        Result(Path file) { this.file = file; }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Path outDir = null;
+        String outExtension = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        ConstraintSolverManager.SolverMode mode = ConstraintSolverManager.SolverMode.RELAXATION;
+        ConstraintSolverManager.Schedule schedule = ConstraintSolverManager.Schedule.SWEEP;
+        boolean merge = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-o": outDir = Paths.get(args[++i]); break;
+                case "-f": outExtension = args[++i]; break;
+                case "-j": threads = Integer.parseInt(args[++i]); break;
+                case "--solver": mode = ConstraintSolverManager.SolverMode.valueOf(args[++i].toUpperCase()); break;
+                case "--schedule": schedule = ConstraintSolverManager.Schedule.valueOf(args[++i].toUpperCase()); break;
+                case "--merge": merge = true; break;
+                case "--metrics": SolverMetrics.shared().setEnabled(true); break;
+                default: files.add(Paths.get(args[i]));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("usage: SketchCli [-o outdir] [-f .ext] [-j threads] [--solver newton|relaxation] [--schedule sweep|worklist|colored|jacobi (experimental)] [--merge] [--metrics] file...");
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<Future<Result>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (Path file : files) {
+            Path out = outDir == null ? null : outDir.resolve(outName(file, outExtension));
+            ConstraintSolverManager.SolverMode m = mode;
+            ConstraintSolverManager.Schedule order = schedule;
+            boolean mergeFirst = merge;
+            futures.add(pool.submit(() -> run(file, out, pool, m, order, mergeFirst)));
+        }
+
+        int failed = 0, unconverged = 0;
+        for (Future<Result> future : futures) {
+            Result r;
+            try {
+                r = future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            if (r.failure != null) {
+                failed++;
+                System.out.println(r.file + ": FAILED " + r.failure);
+                continue;
+            }
+            boolean ok = r.converged == r.components;
+            if (!ok) unconverged++;
+            System.out.printf("%s: %d objects, %d constraints, %d/%d components converged, max error %.4g, %d iterations, %d ms%n",
+                              r.file, r.objects, r.constraints, r.converged, r.components, r.maxError, r.iterations, r.millis);
+        }
+        pool.shutdown();
+        System.out.printf("%d files, %d failed, %d not converged, %d ms on %d threads%n", files.size(), failed,
+                          unconverged, (System.nanoTime() - start) / 1_000_000, threads);
+        if (SolverMetrics.shared().isEnabled()) System.out.print(SolverMetrics.shared().summary());
+        System.exit(failed > 0 ? 1 : unconverged > 0 ? 2 : 0);
+    }
+
+    private static String outName(Path file, String extension) {
+        String name = file.getFileName().toString();
+        if (extension == null) return name;
+        int dot = name.lastIndexOf('.');
+        return (dot < 0 ? name : name.substring(0, dot)) + extension;
+    }
+
+    private static Result run(Path file, Path out, ForkJoinPool pool, ConstraintSolverManager.SolverMode mode,
+                              ConstraintSolverManager.Schedule schedule, boolean merge) {
+        Result r = new Result(file);
+        long start = System.nanoTime();
+        try {
+            SketchFormat in = SketchFormats.forPath(file);
+            if (in == null) throw new IllegalArgumentException("no format for " + file.getFileName());
+            // share the pool so solver tasks of all files are balanced together
+            ConstraintSolverManager solver = new ConstraintSolverManager(pool);
+            solver.setMode(mode);
+            solver.setSchedule(schedule);
+            SketchEngine engine = new SketchEngine(solver);
+            in.read(file, engine);
+            if (merge) engine.mergeClosePoints();
+            for (ConstraintComponent comp : engine.solve()) {
+                r.components++;
+                if (comp.isConverged()) r.converged++;
+                r.iterations = Math.max(r.iterations, comp.getIterations());
+                r.maxError = Math.max(r.maxError, comp.getMaxError());
+            }
+            r.objects = engine.getObjects().size();
+            r.constraints = engine.getConstraints().size();
+            if (out != null) {
+                SketchFormat format = SketchFormats.forPath(out);
+                if (format == null) throw new IllegalArgumentException("no format for " + out.getFileName());
+                Files.createDirectories(out.toAbsolutePath().getParent());
+                format.write(engine, out);
+            }
+        } catch (Exception e) {
+            // e.g. a NullPointerException has no message, and a null failure reads as success
+            r.failure = e.getMessage() != null ? e.getMessage() : e.toString();
+        }
+        r.millis = (System.nanoTime() - start) / 1_000_000;
+        return r;
+    }
+}
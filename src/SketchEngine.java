@@ -0,0 +1,429 @@
+import java.awt.geom.Rectangle2D;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * The drawing without the window: points, lines, arcs and constraints, and the edits a user can
+ * make to them (add, delete, move, merge, constrain, solve). Nothing here needs a display, so the
+ * same model runs behind the DrawingCanvas and in batch tools (see SketchCli).
+ *
+ * A view follows the model through a Listener: it hears about every object that is added or
+ * removed, and about every object whose shape is about to change and has changed, which is all it
+ * needs to know what to redraw.
+ */
+public class SketchEngine {
+    // how close (in drawing units) a click has to be to hit an object
+    public static final double HIT_TOLERANCE = 10;
+    public static final double MERGE_THRESHOLD = 5.0;
+    // live drag: the dragged point's component is solved within this budget on every move
+    private static final long LIVE_DRAG_BUDGET_MICROS = 4000;
+
+    public interface Listener {
+        default void added(GeometricObject obj) {}
+        default void removed(GeometricObject obj) {}
+        // obj still has its old shape
+        default void changing(GeometricObject obj) {}
+        default void changed(GeometricObject obj) {}
+    }
+
+    private final PointStore pointStore = new PointStore();
+    private final ConstraintSolverManager solverManager;
+    private final Set<Constraint> constraints = new LinkedHashSet<>();
+    private final ConstraintGraph constraintGraph = new ConstraintGraph();
+    // what changed since the last solve; only the components touching these are re-solved
+    private final Set<Integer> dirtyPoints = new HashSet<>();
+    private final List<Constraint> dirtyConstraints = new ArrayList<>();
+
+    private final ArrayList<GeometricObject> objects = new ArrayList<>();
+    // position of each object in `objects`, so removal is O(1)
+    private final Map<GeometricObject, Integer> objectPositions = new IdentityHashMap<>();
+    // grid over `objects` for snapping and hit-testing
+    private final SpatialIndex spatialIndex = new SpatialIndex();
+    // PointObject handle for each PointStore slot, to map solver output back to objects
+    private final List<PointObject> pointHandles = new ArrayList<>();
+    // point -> incident lines, line -> constraints
+    private final PointAdjacency adjacency = new PointAdjacency();
+
+    private Listener listener = new Listener() {};
+
+    // live drag state
+    private PointObject dragPoint = null;
+    private SolveWorkspace dragWorkspace = null;  // warm start: keeps the previous frame's solution
+    private boolean[] dragPinned;
+    private int dragLocal = -1;
+    private double[] dragStartXs, dragStartYs;  // where the component's points were when the drag began
+    // 0 solves each drag step to the end, which takes longer but does not depend on timing
+    private long liveDragBudgetMicros = LIVE_DRAG_BUDGET_MICROS;
+
+    public SketchEngine() {
+        this(new ConstraintSolverManager());
+    }
+
+    public SketchEngine(ConstraintSolverManager solverManager) {
+        this.solverManager = solverManager;
+    }
+
+    public void setListener(Listener listener) { this.listener = listener; }
+
+    public PointStore getPointStore() { return pointStore; }
+    public ConstraintGraph getConstraintGraph() { return constraintGraph; }
+    public ConstraintSolverManager getSolverManager() { return solverManager; }
+    public List<GeometricObject> getObjects() { return Collections.unmodifiableList(objects); }
+    // extent of all objects, or null for an empty drawing
+    public Rectangle2D getBounds() {
+        Rectangle2D bounds = null;
+        for (GeometricObject obj : objects) {
+            if (bounds == null) bounds = obj.getBounds();
+            else bounds.add(obj.getBounds());
+        }
+        return bounds;
+    }
+
+    // position of obj in getObjects(), or -1; stable until the next removal
+    public int indexOf(GeometricObject obj) {
+        Integer position = objectPositions.get(obj);
+        return position == null ? -1 : position;
+    }
+    public Set<Constraint> getConstraints() { return Collections.unmodifiableSet(constraints); }
+    public List<LineObject> linesAt(PointObject p) { return adjacency.linesAt(p); }
+    public List<Constraint> constraintsOn(LineObject line) { return adjacency.constraintsOn(line); }
+
+    /**
+     * ADD
+     */
+    public PointObject addPoint(double x, double y) {
+        PointObject p = new PointObject(pointStore, x, y);
+        add(p);
+        return p;
+    }
+
+    public LineObject addLine(PointObject start, PointObject end) {
+        LineObject line = new LineObject(start, end);
+        add(line);
+        return line;
+    }
+
+    public void add(GeometricObject obj) {
+        if (objectPositions.containsKey(obj)) return;
+        if (obj instanceof PointObject) {
+            PointObject p = (PointObject) obj;
+            while (pointHandles.size() <= p.getIndex()) pointHandles.add(null);
+            pointHandles.set(p.getIndex(), p);
+        } else if (obj instanceof LineObject) {
+            adjacency.addLine((LineObject) obj);
+        }
+        register(obj);
+    }
+
+    // bulk loading: coordinates go into the store in one copy, and only the handles and indexes 
+    // are built per object
+    public PointObject[] addPoints(DoubleBuffer xs, DoubleBuffer ys, int n) {
+        int first = pointStore.addAll(xs, ys, n);
+        PointObject[] points = new PointObject[n];
+        grow(n);
+        while (pointHandles.size() < first + n) pointHandles.add(null);
+        for (int i = 0; i < n; i++) {
+            points[i] = new PointObject(pointStore, first + i);
+            pointHandles.set(first + i, points[i]);
+            register(points[i]);
+        }
+        return points;
+    }
+
+    // lines from points[starts[i]] to points[ends[i]]
+    public LineObject[] addLines(PointObject[] points, IntBuffer starts, IntBuffer ends, int n) {
+        LineObject[] lines = new LineObject[n];
+        grow(n);
+        for (int i = 0; i < n; i++) {
+            lines[i] = new LineObject(points[starts.get()], points[ends.get()]);
+            adjacency.addLine(lines[i]);
+            register(lines[i]);
+        }
+        return lines;
+    }
+
+    private void grow(int n) {
+        objects.ensureCapacity(objects.size() + n);
+    }
+
+    private void register(GeometricObject obj) {
+        objectPositions.put(obj, objects.size());
+        objects.add(obj);
+        spatialIndex.insert(obj);
+        listener.added(obj);
+    }
+
+    /**
+     * DELETE
+     */
+    // lines take their constraints and unused endpoints with them, points take their lines
+    public void delete(GeometricObject obj) {
+        if (obj instanceof LineObject) deleteLine((LineObject) obj);
+        else if (obj instanceof PointObject) deletePoint((PointObject) obj);
+        else remove(obj);
+    }
+
+    public void deleteLine(LineObject line) {
+        for (Constraint c : new ArrayList<>(adjacency.constraintsOn(line))) {
+            removeConstraint(c);
+            // a group constraint keeps holding its other lines
+            Constraint rest = c.without(line);
+            if (rest != null) addConstraint(rest);
+        }
+        remove(line);
+        // only the endpoints of the deleted line can have become unused
+        for (PointObject p : List.of(line.getStartPoint(), line.getEndPoint())) {
+            if (adjacency.degree(p) == 0) remove(p);
+        }
+    }
+
+    public void deletePoint(PointObject p) {
+        for (LineObject line : new ArrayList<>(adjacency.linesAt(p))) deleteLine(line);
+        remove(p);
+    }
+
+    private void remove(GeometricObject obj) {
+        Integer position = objectPositions.remove(obj);
+        if (position == null) return;
+        // move the last object into the hole instead of shifting the whole list
+        GeometricObject last = objects.remove(objects.size() - 1);
+        if (last != obj) {
+            objects.set(position, last);
+            objectPositions.put(last, position);
+        }
+        spatialIndex.remove(obj);
+        if (obj instanceof PointObject) {
+            adjacency.removePoint((PointObject) obj);
+        } else if (obj instanceof LineObject) {
+            adjacency.removeLine((LineObject) obj);
+        }
+        listener.removed(obj);
+        if (obj instanceof PointObject) {
+            // the slot goes back to the store for the next point
+            int slot = ((PointObject) obj).getIndex();
+            pointHandles.set(slot, null);
+            dirtyPoints.remove(slot);
+            pointStore.free(slot);
+        }
+    }
+
+    /**
+     * CONSTRAIN
+     */
+    public void addConstraint(Constraint c) {
+        if (!constraints.add(c)) return;
+        constraintGraph.add(c);
+        adjacency.addConstraint(c, c.lines());
+        dirtyConstraints.add(c);
+    }
+
+    public void removeConstraint(Constraint c) {
+        if (!constraints.remove(c)) return;
+        constraintGraph.remove(c);
+        adjacency.removeConstraint(c, c.lines());
+        dirtyConstraints.remove(c);
+    }
+
+    /**
+     * MOVE
+     */
+    public void movePoint(PointObject p, double x, double y) {
+        firePointChanging(p);
+        p.setX(x);
+        p.setY(y);
+        spatialIndex.pointMoved(p);
+        dirtyPoints.add(p.getIndex());
+        firePointChanged(p);
+    }
+
+    private void firePointChanging(PointObject p) {
+        listener.changing(p);
+        for (LineObject line : adjacency.linesAt(p)) listener.changing(line);
+    }
+
+    private void firePointChanged(PointObject p) {
+        listener.changed(p);
+        for (LineObject line : adjacency.linesAt(p)) listener.changed(line);
+    }
+
+    /**
+     * MERGE
+     * Merges points that are extremely close together (within a threshold).
+     * All points are welded in one pass (see PointWelder). Lines that referenced a removed point
+     * are re-wired to the point it was merged into, and so are its constraints.
+     */
+    public void mergeClosePoints() {
+        List<PointObject> points = new ArrayList<>();
+        for (GeometricObject obj : objects) {
+            if (obj instanceof PointObject) {
+                points.add((PointObject) obj);
+            }
+        }
+        weld(points);
+    }
+
+    // after a drag only the moved points can have come close to another point
+    public void mergeClosePoints(Collection<PointObject> moved) {
+        Set<PointObject> candidates = new LinkedHashSet<>();
+        for (PointObject p : moved) {
+            Rectangle2D.Double around = new Rectangle2D.Double(p.getX() - MERGE_THRESHOLD, p.getY() - MERGE_THRESHOLD,
+                                                               2 * MERGE_THRESHOLD, 2 * MERGE_THRESHOLD);
+            spatialIndex.query(around, obj -> {
+                if (obj instanceof PointObject) candidates.add((PointObject) obj);
+            });
+        }
+        weld(new ArrayList<>(candidates));
+    }
+
+    private void weld(List<PointObject> points) {
+        int[] survivor = PointWelder.clusters(points, MERGE_THRESHOLD);
+        // survivors move to their cluster's centroid
+        double[][] centroids = PointWelder.centroids(points, survivor);
+        for (int i = 0; i < survivor.length; i++) {
+            if (centroids[i] != null) movePoint(points.get(i), centroids[i][0], centroids[i][1]);
+        }
+        for (int i = 0; i < survivor.length; i++) {
+            if (survivor[i] == i) continue;
+            PointObject p2 = points.get(i);
+            PointObject p1 = points.get(survivor[i]);
+            // update the LineObjects that reference p2
+            for (LineObject line : new ArrayList<>(adjacency.linesAt(p2))) {
+                listener.changing(line);
+                if (line.getStartPoint() == p2) adjacency.setStartPoint(line, p1);
+                if (line.getEndPoint() == p2) adjacency.setEndPoint(line, p1);
+                spatialIndex.update(line);
+                listener.changed(line);
+            }
+            constraintGraph.movePoint(p2.getIndex(), p1.getIndex());
+            remove(p2);
+        }
+    }
+
+    /**
+     * SOLVE
+     */
+    public boolean hasUnsolvedChanges() { return !dirtyPoints.isEmpty() || !dirtyConstraints.isEmpty(); }
+
+    // points and constraints touched since the last solve, for a solve run elsewhere (see AsyncSolver)
+    public Set<Integer> getDirtyPoints() { return dirtyPoints; }
+    public List<Constraint> getDirtyConstraints() { return dirtyConstraints; }
+
+    public void clearDirty() {
+        dirtyPoints.clear();
+        dirtyConstraints.clear();
+    }
+
+    // re-solve, on this thread, the components touched since the last solve
+    public List<ConstraintComponent> solve() {
+        if (!hasUnsolvedChanges()) return List.of();
+        SolveWorkspace workspace = SolveWorkspace.gather(pointStore,
+                constraintGraph.affected(dirtyPoints, dirtyConstraints));
+        clearDirty();
+        solverManager.solveComponents(workspace.xs(), workspace.ys(), workspace.components(),
+                ConstraintSolverManager.SolveControl.NONE);
+        applySolved(workspace, workspace.xs(), workspace.ys());
+        return workspace.components();
+    }
+
+    // write solved coordinates for the workspace's points into the store; a background solve can
+    // finish after a delete or merge, so points that have left the sketch since (whose slots may
+    // already belong to new points) are skipped
+    public void applySolved(SolveWorkspace workspace, double[] xs, double[] ys) {
+        List<PointObject> live = new ArrayList<>(workspace.size());
+        for (int i = 0; i < workspace.size(); i++) {
+            if (workspace.holds(pointStore, i)) live.add(pointHandles.get(workspace.slot(i)));
+        }
+        for (PointObject p : live) firePointChanging(p);
+        workspace.scatter(pointStore, xs, ys);
+        for (PointObject p : live) {
+            spatialIndex.pointMoved(p);
+            firePointChanged(p);
+        }
+    }
+
+    /**
+     * DRAG
+     */
+    // start dragging p; with `live` its component is re-solved on every dragTo
+    public void beginDrag(PointObject p, boolean live) {
+        dragPoint = p;
+        dragWorkspace = null;
+        if (!live) return;
+        // snapshot the dragged point's component once; each move then continues from it
+        dragWorkspace = SolveWorkspace.gather(pointStore,
+                constraintGraph.affected(List.of(p.getIndex()), List.of()));
+        dragLocal = dragWorkspace.indexOf(p.getIndex());
+        dragPinned = new boolean[dragWorkspace.size()];
+        if (dragLocal >= 0) dragPinned[dragLocal] = true;
+        dragStartXs = dragWorkspace.xs().clone();
+        dragStartYs = dragWorkspace.ys().clone();
+    }
+
+    public PointObject getDragPoint() { return dragPoint; }
+    public long getLiveDragBudgetMicros() { return liveDragBudgetMicros; }
+    public void setLiveDragBudgetMicros(long micros) { this.liveDragBudgetMicros = micros; }
+
+    public void dragTo(double x, double y) {
+        if (dragPoint == null) return;
+        movePoint(dragPoint, x, y);
+        if (dragWorkspace != null && dragLocal >= 0) {
+            dragWorkspace.xs()[dragLocal] = x;
+            dragWorkspace.ys()[dragLocal] = y;
+            if (liveDragBudgetMicros > 0) {
+                solverManager.solveWithin(dragWorkspace, dragPinned, liveDragBudgetMicros * 1000);
+            } else {
+                solverManager.solveComponents(dragWorkspace.xs(), dragWorkspace.ys(), dragWorkspace.components(),
+                        dragPinned, ConstraintSolverManager.SolveControl.NONE);
+            }
+            applySolved(dragWorkspace, dragWorkspace.xs(), dragWorkspace.ys());
+        }
+    }
+
+    // drop the dragged point, welding it to nearby points; of the points the live solve touched,
+    // any that moved can have come within the merge threshold of a neighbour, however short the move
+    public void endDrag() {
+        if (dragPoint == null) return;
+        List<PointObject> moved = new ArrayList<>();
+        moved.add(dragPoint);
+        if (dragWorkspace != null) {
+            for (int i = 0; i < dragWorkspace.size(); i++) {
+                PointObject p = pointHandles.get(dragWorkspace.slot(i));
+                if (p == dragPoint || !objectPositions.containsKey(p)) continue;
+                if (p.getX() != dragStartXs[i] || p.getY() != dragStartYs[i]) moved.add(p);
+            }
+        }
+        dragPoint = null;
+        dragWorkspace = null;
+        dragStartXs = dragStartYs = null;
+        mergeClosePoints(moved);
+    }
+
+    /**
+     * FIND
+     */
+    // first-added point within HIT_TOLERANCE of (x, y)
+    public PointObject findPoint(int x, int y) {
+        return spatialIndex.findPoint(x, y, HIT_TOLERANCE);
+    }
+
+    // last-added (topmost) object of the given type under (x, y)
+    public <T extends GeometricObject> T findTopmost(int x, int y, Class<T> type) {
+        return spatialIndex.findTopmost(x, y, HIT_TOLERANCE, type);
+    }
+
+    public void query(Rectangle2D area, Consumer<GeometricObject> visitor) {
+        spatialIndex.query(area, visitor);
+    }
+}
@@ -0,0 +1,18 @@
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * A file format a drawing can be saved to and loaded from. Formats are looked up by file
+ * extension (see SketchFormats).
+ */
+public interface SketchFormat {
+    // file extension including the dot, e.g. ".sketch"
+    String extension();
+
+    // add the drawing in `file` to `engine` (normally a new, empty one)
+    void read(Path file, SketchEngine engine) throws IOException;
+
+    void write(SketchEngine engine, Path file) throws IOException;
+}
@@ -0,0 +1,82 @@
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Registry of sketch file formats by extension, and the names the formats share for constraint
+ * kinds. A constraint is stored as its kind plus the lines it constrains, in the order lines()
+ * returns them, which is also the order its constructor takes them.
+ */
+public class SketchFormats {
+    // index in this list is the constraint's type code in binary formats; only append to it
+    public static final List<String> CONSTRAINT_KINDS =
+        List.of("horizontal", "vertical", "parallel", "perpendicular", "equal-length",
+                "parallel-group", "equal-length-group");
+    // arity of the group kinds, which take two or more lines
+    public static final int ANY = -1;
+
+    private static final Map<String, SketchFormat> formats = new LinkedHashMap<>();
+
+    static {
+        register(new TextSketchFormat());
+        register(new BinarySketchFormat());
+        register(new JsonLinesSketchFormat());
+        register(new SvgSketchFormat());
+    }
+
+    private SketchFormats() {}
+
+    public static synchronized void register(SketchFormat format) {
+        formats.put(format.extension(), format);
+    }
+
+    public static synchronized List<SketchFormat> all() {
+        return new ArrayList<>(formats.values());
+    }
+
+    // the format for the file's extension, or null if there is none
+    public static synchronized SketchFormat forPath(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? null : formats.get(name.substring(dot));
+    }
+
+    public static String kindOf(Constraint c) {
+        if (c instanceof ParallelGroupConstraint) return "parallel-group";
+        if (c instanceof EqualLengthGroupConstraint) return "equal-length-group";
+        if (c instanceof HorizontalConstraint) return "horizontal";
+        if (c instanceof VerticalConstraint) return "vertical";
+        if (c instanceof ParallelLineConstraint) return "parallel";
+        if (c instanceof PerpendicularLineConstraint) return "perpendicular";
+        if (c instanceof EqualLengthConstraint) return "equal-length";
+        throw new IllegalArgumentException("no file representation for " + c.getClass().getSimpleName());
+    }
+
+    // how many lines a constraint of this kind takes, ANY for the groups
+    public static int arity(String kind) {
+        if (kind.endsWith("-group")) return ANY;
+        return kind.equals("horizontal") || kind.equals("vertical") ? 1 : 2;
+    }
+
+    public static Constraint constraint(String kind, List<LineObject> lines) {
+        int arity = arity(kind);
+        if (arity == ANY ? lines.size() < 2 : lines.size() != arity) {
+            throw new IllegalArgumentException(kind + " takes " + (arity == ANY ? "at least 2" : arity)
+                                               + " lines, got " + lines.size());
+        }
+        switch (kind) {
+            case "horizontal": return new HorizontalConstraint(lines.get(0));
+            case "vertical": return new VerticalConstraint(lines.get(0));
+            case "parallel": return new ParallelLineConstraint(lines.get(0), lines.get(1));
+            case "perpendicular": return new PerpendicularLineConstraint(lines.get(0), lines.get(1));
+            case "equal-length": return new EqualLengthConstraint(lines.get(0), lines.get(1));
+            case "parallel-group": return new ParallelGroupConstraint(lines);
+            case "equal-length-group": return new EqualLengthGroupConstraint(lines);
+            default: throw new IllegalArgumentException("unknown constraint kind: " + kind);
+        }
+    }
+}
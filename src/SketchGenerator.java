@@ -0,0 +1,271 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Seeded synthetic drawings for load and scaling tests, built through the model itself
+ * (SketchEngine, so PointObject, LineObject, ArcObject and the Constraint classes). The same seed,
+ * scenario and size always give the same drawing. `size` is the number of lines, roughly; every
+ * point is nudged off where its constraints want it so there is always something to solve.
+ *
+ *   PAIRS     loose lines, constrained alone, in pairs or (group kinds) in groups of GROUP_SIZE
+ *             by the configured kinds, one kind at a time (many small components)
+ *   AXES      loose near-axis lines, each horizontal or vertical
+ *   GRID      a lattice sharing its points, horizontal and vertical edges (one big component)
+ *   MESH      a lattice cut into triangles: equal sides and parallel diagonals in every cell
+ *   CHAINS    long polylines, each segment perpendicular to the last and parallel to the one
+ *             before that
+ *   CLUSTERS  random stars of lines around shared hubs, neighbouring spokes sharing endpoints,
+ *             mixed constraints, an arc around each star
+ *
+ * Optionally a fraction of the points get a loose twin closer than the merge threshold, as if
+ * drawn by hand, for mergeClosePoints to weld.
+ *
+ * From the command line it writes a drawing in any registered format:
+ *
+ *   java -cp out SketchGenerator scenario size seed file
+ */
+public class SketchGenerator {
+    public enum Scenario { PAIRS, AXES, GRID, MESH, CHAINS, CLUSTERS }
+
+    // distance between neighbouring points on grids, and between loose lines
+    private static final double SPACING = 40;
+    private static final int CHAIN_LENGTH = 1000;
+    private static final int CLUSTER_SPOKES = 8;
+    // lines per group constraint in PAIRS
+    private static final int GROUP_SIZE = 8;
+
+    private final long seed;
+    private double jitter = 3;
+    private double twins = 0;
+    private List<String> kinds = SketchFormats.CONSTRAINT_KINDS;
+
+    public SketchGenerator(long seed) {
+        this.seed = seed;
+    }
+
+    // how far, at most, points are moved off their constrained position
+    public SketchGenerator jitter(double jitter) {
+        this.jitter = jitter;
+        return this;
+    }
+
+    // fraction of points that get a twin to weld
+    public SketchGenerator twins(double fraction) {
+        this.twins = fraction;
+        return this;
+    }
+
+    // constraint kinds PAIRS cycles through (default: all of them)
+    public SketchGenerator kinds(List<String> kinds) {
+        this.kinds = kinds;
+        return this;
+    }
+
+    // a named workload, as the benchmarks and scaling runs name them: a scenario ("grid"), a
+    // constraint kind ("parallel": PAIRS of that kind only) or "mixed" (PAIRS of every kind)
+    public static SketchEngine workload(String name, int size, long seed) {
+        return workload(new SketchEngine(), name, size, seed);
+    }
+
+    public static SketchEngine workload(SketchEngine engine, String name, int size, long seed) {
+        SketchGenerator generator = new SketchGenerator(seed);
+        if (SketchFormats.CONSTRAINT_KINDS.contains(name)) {
+            return generator.kinds(List.of(name)).generate(engine, Scenario.PAIRS, size);
+        }
+        if (name.equals("mixed")) return generator.generate(engine, Scenario.PAIRS, size);
+        return generator.generate(engine, Scenario.valueOf(name.toUpperCase()), size);
+    }
+
+    public SketchEngine generate(Scenario scenario, int size) {
+        return generate(new SketchEngine(), scenario, size);
+    }
+
+    // add the drawing to `engine` and return it
+    public SketchEngine generate(SketchEngine engine, Scenario scenario, int size) {
+        Random random = new Random(seed);
+        switch (scenario) {
+            case PAIRS: pairs(engine, random, size); break;
+            case AXES: axes(engine, random, size); break;
+            case GRID: grid(engine, random, size); break;
+            case MESH: mesh(engine, random, size); break;
+            case CHAINS: chains(engine, random, size); break;
+            case CLUSTERS: clusters(engine, random, size); break;
+        }
+        if (twins > 0) {
+            List<PointObject> points = new ArrayList<>();
+            for (GeometricObject obj : engine.getObjects()) {
+                if (obj instanceof PointObject && random.nextDouble() < twins) points.add((PointObject) obj);
+            }
+            double near = SketchEngine.MERGE_THRESHOLD / 2;
+            for (PointObject p : points) {
+                engine.addPoint(p.getX() + random.nextDouble() * near, p.getY() + random.nextDouble() * near);
+            }
+        }
+        return engine;
+    }
+
+    private double nudge(Random random) {
+        return (random.nextDouble() * 2 - 1) * jitter;
+    }
+
+    private PointObject point(SketchEngine engine, Random random, double x, double y) {
+        return engine.addPoint(x + nudge(random), y + nudge(random));
+    }
+
+    // a loose line of random direction starting in cell i of a square layout
+    private LineObject looseLine(SketchEngine engine, Random random, int i, int side, double angle) {
+        double x = (i % side) * SPACING, y = (i / side) * SPACING;
+        double length = SPACING * (0.3 + 0.4 * random.nextDouble());
+        return engine.addLine(point(engine, random, x, y),
+                              point(engine, random, x + length * Math.cos(angle), y + length * Math.sin(angle)));
+    }
+
+    private void pairs(SketchEngine engine, Random random, int size) {
+        int side = (int) Math.ceil(Math.sqrt(size));
+        List<LineObject> waiting = new ArrayList<>();  // lines of the constraint being filled
+        int k = 0;
+        for (int i = 0; i < size; i++) {
+            waiting.add(looseLine(engine, random, i, side, random.nextDouble() * Math.PI));
+            String kind = kinds.get(k % kinds.size());
+            int arity = SketchFormats.arity(kind);
+            if (waiting.size() == (arity == SketchFormats.ANY ? GROUP_SIZE : arity)) {
+                engine.addConstraint(SketchFormats.constraint(kind, waiting));
+                waiting = new ArrayList<>();
+                k++;
+            }
+        }
+    }
+
+    private void axes(SketchEngine engine, Random random, int size) {
+        int side = (int) Math.ceil(Math.sqrt(size));
+        for (int i = 0; i < size; i++) {
+            boolean horizontal = random.nextBoolean();
+            LineObject line = looseLine(engine, random, i, side, horizontal ? 0 : Math.PI / 2);
+            engine.addConstraint(horizontal ? new HorizontalConstraint(line) : new VerticalConstraint(line));
+        }
+    }
+
+    // lattice of (n + 1) x (n + 1) points
+    private PointObject[][] lattice(SketchEngine engine, Random random, int n) {
+        PointObject[][] p = new PointObject[n + 1][n + 1];
+        for (int r = 0; r <= n; r++) {
+            for (int c = 0; c <= n; c++) p[r][c] = point(engine, random, c * SPACING, r * SPACING);
+        }
+        return p;
+    }
+
+    private void grid(SketchEngine engine, Random random, int size) {
+        // a lattice of n x n cells has 2n(n+1) edges
+        int n = Math.max(1, (int) Math.round(Math.sqrt(size / 2.0)));
+        PointObject[][] p = lattice(engine, random, n);
+        for (int r = 0; r <= n; r++) {
+            for (int c = 0; c <= n; c++) {
+                if (c < n) engine.addConstraint(new HorizontalConstraint(engine.addLine(p[r][c], p[r][c + 1])));
+                if (r < n) engine.addConstraint(new VerticalConstraint(engine.addLine(p[r][c], p[r + 1][c])));
+            }
+        }
+    }
+
+    private void mesh(SketchEngine engine, Random random, int size) {
+        // about three lines per cell: top, left and the diagonal
+        int n = Math.max(1, (int) Math.round(Math.sqrt(size / 3.0)));
+        PointObject[][] p = lattice(engine, random, n);
+        LineObject[][] diagonal = new LineObject[n][n];
+        for (int r = 0; r < n; r++) {
+            for (int c = 0; c < n; c++) {
+                LineObject top = engine.addLine(p[r][c], p[r][c + 1]);
+                LineObject left = engine.addLine(p[r][c], p[r + 1][c]);
+                diagonal[r][c] = engine.addLine(p[r][c], p[r + 1][c + 1]);
+                engine.addConstraint(new EqualLengthConstraint(top, left));
+                if (c > 0) engine.addConstraint(new ParallelLineConstraint(diagonal[r][c - 1], diagonal[r][c]));
+            }
+        }
+        for (int r = 0; r < n; r++) engine.addLine(p[r][n], p[r + 1][n]);
+        for (int c = 0; c < n; c++) engine.addLine(p[n][c], p[n][c + 1]);
+    }
+
+    private void chains(SketchEngine engine, Random random, int size) {
+        int chains = Math.max(1, (size + CHAIN_LENGTH - 1) / CHAIN_LENGTH);
+        int side = (int) Math.ceil(Math.sqrt(chains));
+        for (int k = 0, made = 0; k < chains; k++) {
+            int length = Math.min(CHAIN_LENGTH, size - made);
+            made += length;
+            // a staircase: right, down, right, down ... squeezed into its own square
+            double step = SPACING / 2;
+            double x = (k % side) * (CHAIN_LENGTH / 2 + 2) * step, y = (k / side) * (CHAIN_LENGTH / 2 + 2) * step;
+            PointObject at = point(engine, random, x, y);
+            LineObject last = null, beforeLast = null;
+            for (int i = 0; i < length; i++) {
+                if (i % 2 == 0) x += step;
+                else y += step;
+                PointObject next = point(engine, random, x, y);
+                LineObject line = engine.addLine(at, next);
+                if (last != null) engine.addConstraint(new PerpendicularLineConstraint(last, line));
+                if (beforeLast != null) engine.addConstraint(new ParallelLineConstraint(beforeLast, line));
+                beforeLast = last;
+                last = line;
+                at = next;
+            }
+        }
+    }
+
+    private void clusters(SketchEngine engine, Random random, int size) {
+        // per star: CLUSTER_SPOKES spokes and as many rim lines joining neighbouring spoke ends
+        int stars = Math.max(1, size / (2 * CLUSTER_SPOKES));
+        int side = (int) Math.ceil(Math.sqrt(stars));
+        double cell = 4 * SPACING;
+        for (int s = 0; s < stars; s++) {
+            double cx = (s % side + 0.5 + 0.2 * (random.nextDouble() - 0.5)) * cell;
+            double cy = (s / side + 0.5 + 0.2 * (random.nextDouble() - 0.5)) * cell;
+            double radius = cell * (0.25 + 0.15 * random.nextDouble());
+            PointObject hub = point(engine, random, cx, cy);
+            PointObject[] ends = new PointObject[CLUSTER_SPOKES];
+            LineObject[] spokes = new LineObject[CLUSTER_SPOKES];
+            for (int i = 0; i < CLUSTER_SPOKES; i++) {
+                double angle = 2 * Math.PI * (i + 0.3 * random.nextDouble()) / CLUSTER_SPOKES;
+                ends[i] = point(engine, random, cx + radius * Math.cos(angle), cy + radius * Math.sin(angle));
+                spokes[i] = engine.addLine(hub, ends[i]);
+            }
+            List<LineObject> rim = new ArrayList<>(CLUSTER_SPOKES);
+            for (int i = 0; i < CLUSTER_SPOKES; i++) rim.add(engine.addLine(ends[i], ends[(i + 1) % CLUSTER_SPOKES]));
+            for (int i = 0; i < CLUSTER_SPOKES; i++) {
+                LineObject a = spokes[i], b = spokes[(i + 1) % CLUSTER_SPOKES];
+                switch (random.nextInt(4)) {
+                    case 0: engine.addConstraint(new EqualLengthConstraint(a, b)); break;
+                    case 1: engine.addConstraint(new EqualLengthConstraint(rim.get(i), rim.get((i + 1) % CLUSTER_SPOKES))); break;
+                    case 2: engine.addConstraint(new PerpendicularLineConstraint(a, spokes[(i + CLUSTER_SPOKES / 4) % CLUSTER_SPOKES])); break;
+                    default: break;
+                }
+            }
+            // the spoke that points (nearly) right is horizontal
+            engine.addConstraint(new HorizontalConstraint(spokes[0]));
+            int r = (int) Math.round(radius * 1.2);
+            engine.add(new ArcObject((int) Math.round(cx) - r, (int) Math.round(cy) - r, 2 * r, 2 * r,
+                                     random.nextInt(360), 90 + random.nextInt(180)));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4) {
+            System.err.println("usage: SketchGenerator scenario|kind|mixed size seed file");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[3]);
+        SketchFormat format = SketchFormats.forPath(file);
+        if (format == null) {
+            System.err.println("no format for " + file.getFileName());
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        SketchEngine engine = workload(args[0], Integer.parseInt(args[1]), Long.parseLong(args[2]));
+        format.write(engine, file);
+        System.out.printf("%s: %d objects, %d constraints, %d ms%n", file, engine.getObjects().size(),
+                          engine.getConstraints().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -1,6 +1,9 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public class SketchpadUI extends JFrame {
     private DrawingCanvas canvas;
@@ -17,6 +20,7 @@ public class SketchpadUI extends JFrame {
         JButton arcButton = new JButton("arc");
         JButton deleteButton = new JButton("delete");
         JButton moveButton = new JButton("move"); 
+        JCheckBox liveDragBox = new JCheckBox("live drag", true); 
         // disable the buttons initially 
         pointButton.setEnabled(false); 
         lineButton.setEnabled(false); 
@@ -28,6 +32,7 @@ public class SketchpadUI extends JFrame {
         buttonPanelTop.add(arcButton);
         buttonPanelTop.add(deleteButton); 
         buttonPanelTop.add(moveButton); 
+        buttonPanelTop.add(liveDragBox); 
         
         // Bottom panel for constraint buttons
         JPanel buttonPanelBottom = new JPanel(new FlowLayout());
@@ -36,6 +41,7 @@ public class SketchpadUI extends JFrame {
         JButton equalLengthButton = new JButton("equal length");
         JButton parallelButton = new JButton("parallel");
         JButton perpendicularButton = new JButton("perpendicular");
+        JComboBox<ConstraintSolverManager.SolverMode> solverBox = new JComboBox<>(ConstraintSolverManager.SolverMode.values());
         // JButton groupButton = new JButton("group");
         // JButton tangentButton = new JButton("tangent");
         horizontalButton.setEnabled(false); 
@@ -44,12 +50,15 @@ public class SketchpadUI extends JFrame {
         parallelButton.setEnabled(false); 
         // groupButton.setEnabled(false); 
         perpendicularButton.setEnabled(false); 
+        solverBox.setEnabled(false); 
         // tangentButton.setEnabled(false); 
         buttonPanelBottom.add(horizontalButton);
         buttonPanelBottom.add(verticalButton);
         buttonPanelBottom.add(equalLengthButton);
         buttonPanelBottom.add(parallelButton);
         buttonPanelBottom.add(perpendicularButton); 
+        buttonPanelBottom.add(new JLabel("solver:")); 
+        buttonPanelBottom.add(solverBox); 
         // buttonPanelBottom.add(groupButton);
         // buttonPanelBottom.add(tangentButton);
         
@@ -72,6 +81,7 @@ public class SketchpadUI extends JFrame {
         arcButton.addActionListener(_ -> canvas.setMode(DrawingCanvas.Mode.ARC));
         deleteButton.addActionListener(_ -> canvas.setMode(DrawingCanvas.Mode.DELETE));
         moveButton.addActionListener(_ -> canvas.setMode(DrawingCanvas.Mode.MOVE));
+        liveDragBox.addActionListener(_ -> canvas.setLiveDrag(liveDragBox.isSelected()));
         
         // Constraint buttons - placeholders for now
         parallelButton.addActionListener(_ -> {
@@ -106,6 +116,8 @@ public class SketchpadUI extends JFrame {
                 System.out.println("Perpendicular constraint selected."); 
             }
         });
+        solverBox.addActionListener(_ -> 
+            canvas.setSolverMode((ConstraintSolverManager.SolverMode) solverBox.getSelectedItem()));
         // tangentButton.addActionListener(e -> System.out.println("Tangent constraint selected."));
         horizontalButton.addActionListener(_ -> {
             if (canvas.getMode() == DrawingCanvas.Mode.HORIZONTAL) {
@@ -154,6 +166,7 @@ public class SketchpadUI extends JFrame {
                 verticalButton.setEnabled(true); 
                 parallelButton.setEnabled(true); 
                 perpendicularButton.setEnabled(true); 
+                solverBox.setEnabled(true); 
                 // groupButton.setEnabled(true); 
                 // tangentButton.setEnabled(true);
             }
@@ -164,9 +177,33 @@ public class SketchpadUI extends JFrame {
 
         setVisible(true); 
 
+        // with -Dsketchpad.record=file the session is recorded for SessionReplay 
+        String record = System.getProperty("sketchpad.record"); 
+        if (record != null) startRecording(Paths.get(record)); 
+    }
+
+    private void startRecording(Path file) {
+        try {
+            SessionRecorder recorder = new SessionRecorder(file, canvas.getWidth(), canvas.getHeight()); 
+            canvas.setRecorder(recorder); 
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    recorder.close(); 
+                } catch (IOException e) {
+                    System.err.println("could not finish " + file + ": " + e.getMessage()); 
+                }
+            })); 
+            System.out.println("Recording session to " + file); 
+        } catch (IOException e) {
+            System.err.println("could not record to " + file + ": " + e.getMessage()); 
+        }
     }
     
     public static void main(String[] args) {
+        // with -Dsketchpad.latency=true, print the latency histograms on exit 
+        if (InputLatency.shared().isEnabled()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.err.print(InputLatency.shared().dump()))); 
+        }
         SwingUtilities.invokeLater(SketchpadUI::new);
     }
 }
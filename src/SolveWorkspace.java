@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ * 
+ * A private copy of the points a solve needs. The components are re-indexed against compact local 
+ * arrays, so a solve running on another thread never touches the PointStore the UI is drawing 
+ * from; results are written back in one step with `scatter`, which skips points that were removed 
+ * (and their slots possibly reused) in the meantime. 
+ */
+public class SolveWorkspace {
+    private final int[] slots;  // local index -> store slot 
+    private final int[] generations;  // the slots' PointStore generations when gathered 
+    private final double[] xs; 
+    private final double[] ys; 
+    private final List<ConstraintComponent> components; 
+    private final Map<Integer, Integer> local;  // store slot -> local index 
+
+    private SolveWorkspace(int[] slots, int[] generations, double[] xs, double[] ys, 
+                           List<ConstraintComponent> components, Map<Integer, Integer> local) {
+        this.slots = slots; 
+        this.generations = generations; 
+        this.local = local; 
+        this.xs = xs; 
+        this.ys = ys; 
+        this.components = components; 
+    }
+
+    // copy the points of `components` out of the store 
+    public static SolveWorkspace gather(PointStore store, List<ConstraintComponent> components) {
+        Map<Integer, Integer> local = new HashMap<>(); 
+        List<ConstraintComponent> remapped = new ArrayList<>(components.size()); 
+        for (ConstraintComponent comp : components) {
+            ConstraintComponent copy = new ConstraintComponent(); 
+            int[][] at = comp.slots(); 
+            for (int i = 0; i < at.length; i++) {
+                int[] mapped = new int[at[i].length]; 
+                for (int k = 0; k < mapped.length; k++) {
+                    Integer index = local.get(at[i][k]); 
+                    if (index == null) {
+                        index = local.size(); 
+                        local.put(at[i][k], index); 
+                    }
+                    mapped[k] = index; 
+                }
+                copy.add(comp.constraints().get(i), mapped); 
+            }
+            remapped.add(copy); 
+        }
+        int[] slots = new int[local.size()]; 
+        int[] generations = new int[slots.length]; 
+        double[] xs = new double[slots.length], ys = new double[slots.length]; 
+        for (Map.Entry<Integer, Integer> e : local.entrySet()) {
+            int i = e.getValue(); 
+            slots[i] = e.getKey(); 
+            generations[i] = store.generation(slots[i]); 
+            xs[i] = store.getX(slots[i]); 
+            ys[i] = store.getY(slots[i]); 
+        }
+        return new SolveWorkspace(slots, generations, xs, ys, remapped, local); 
+    }
+
+    public double[] xs() { return xs; } 
+    public double[] ys() { return ys; } 
+    public List<ConstraintComponent> components() { return components; } 
+    public int size() { return slots.length; } 
+    public int slot(int local) { return slots[local]; } 
+
+    // whether the store slot of local point `i` still belongs to the point that was gathered 
+    public boolean holds(PointStore store, int i) {
+        return store.generation(slots[i]) == generations[i]; 
+    }
+
+    // local index of a store slot, or -1 if this workspace does not hold it 
+    public int indexOf(int slot) {
+        Integer i = local.get(slot); 
+        return i == null ? -1 : i; 
+    }
+
+    // write the solved coordinates back into the store 
+    public void scatter(PointStore store) {
+        scatter(store, xs, ys); 
+    }
+
+    // write a snapshot (e.g. a checkpoint copy of xs/ys) back into the store 
+    public void scatter(PointStore store, double[] fromXs, double[] fromYs) {
+        for (int i = 0; i < slots.length; i++) {
+            if (holds(store, i)) store.set(slots[i], fromXs[i], fromYs[i]); 
+        }
+    }
+}
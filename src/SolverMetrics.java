@@ -0,0 +1,242 @@
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.DoubleAccumulator;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * What the constraint solver has been doing: wall time per solver pass, iterations used, the
+ * error left over, how many components converged or ran into the iteration cap, and for every
+ * constraint type how often it was applied and the time spent applying it.
+ *
+ * Off by default; turn it on with -Dsketchpad.metrics=true or the Enabled attribute of the
+ * "sketchpad:type=SolverMetrics" MBean. While off the solver only reads one volatile flag per
+ * pass. Independently of that, each pass is a "sketchpad.Solve" JFR event and the per-type
+ * totals are emitted periodically as "sketchpad.ConstraintType" events, which cost nothing unless
+ * a flight recording has them enabled.
+ */
+public class SolverMetrics implements SolverMetricsMXBean {
+    public static final String OBJECT_NAME = "sketchpad:type=SolverMetrics";
+
+    private static final SolverMetrics SHARED = new SolverMetrics(Boolean.getBoolean("sketchpad.metrics"));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(SHARED, new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.err.println("solver metrics are not available over JMX: " + e);
+        }
+        FlightRecorder.addPeriodicEvent(ConstraintTypeEvent.class, SHARED::emitTypes);
+    }
+
+    // the instance every solver reports to
+    public static SolverMetrics shared() { return SHARED; }
+
+    private volatile boolean enabled;
+
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+    private final LongAdder components = new LongAdder();
+    private final LongAdder converged = new LongAdder();
+    private final LongAdder iterationLimited = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder iterations = new LongAdder();
+    private volatile long lastSolveNanos;
+    private volatile int lastIterations;
+    private volatile double lastMaxError;
+    private final Map<Class<?>, TypeStats> types = new ConcurrentHashMap<>();
+
+    private static class TypeStats {
+        final LongAdder applies = new LongAdder();
+        final LongAdder nanos = new LongAdder();
+    }
+
+    public SolverMetrics(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override public boolean isEnabled() { return enabled; }
+    @Override public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    // one solver pass over a list of components; null when neither the metrics nor the JFR
+    // event want it, so a disabled pass allocates and times nothing
+    public Pass start(ConstraintSolverManager.SolverMode mode) {
+        SolveEvent event = new SolveEvent();
+        if (!enabled && !event.isEnabled()) return null;
+        return new Pass(mode, enabled, event);
+    }
+
+    public void finish(Pass pass) {
+        if (pass == null) return;
+        long nanos = System.nanoTime() - pass.start;
+        if (pass.recorded) {
+            solves.increment();
+            solveNanos.add(nanos);
+            lastSolveNanos = nanos;
+            lastIterations = (int) pass.maxIterations.get();
+            lastMaxError = pass.maxError.get();
+            components.add(pass.components.sum());
+            converged.add(pass.converged.sum());
+            iterationLimited.add(pass.iterationLimited.sum());
+            cancelled.add(pass.cancelled.sum());
+            iterations.add(pass.iterations.sum());
+        }
+        SolveEvent event = pass.event;
+        if (event.shouldCommit()) {
+            event.mode = pass.mode.name();
+            event.components = pass.components.intValue();
+            event.constraints = pass.constraints.intValue();
+            event.converged = pass.converged.intValue();
+            event.iterationLimited = pass.iterationLimited.intValue();
+            event.iterations = (int) pass.maxIterations.get();
+            event.maxError = pass.maxError.get();
+            event.commit();
+        }
+    }
+
+    // one application of `c` that took `nanos`; only called for passes with timesApplies()
+    public void applied(Constraint c, long nanos) {
+        TypeStats stats = types.get(c.getClass());
+        if (stats == null) stats = types.computeIfAbsent(c.getClass(), k -> new TypeStats());
+        stats.applies.increment();
+        stats.nanos.add(nanos);
+    }
+
+    @Override public long getSolveCount() { return solves.sum(); }
+    @Override public long getSolveNanos() { return solveNanos.sum(); }
+    @Override public double getLastSolveMillis() { return lastSolveNanos / 1e6; }
+    @Override public long getComponentCount() { return components.sum(); }
+    @Override public long getConvergedCount() { return converged.sum(); }
+    @Override public long getIterationLimitCount() { return iterationLimited.sum(); }
+    @Override public long getCancelledCount() { return cancelled.sum(); }
+    @Override public long getIterationCount() { return iterations.sum(); }
+    @Override public int getLastIterations() { return lastIterations; }
+    @Override public double getLastMaxError() { return lastMaxError; }
+
+    @Override
+    public Map<String, Long> getApplyCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        types.forEach((type, stats) -> counts.put(type.getSimpleName(), stats.applies.sum()));
+        return counts;
+    }
+
+    @Override
+    public Map<String, Long> getApplyNanos() {
+        Map<String, Long> nanos = new TreeMap<>();
+        types.forEach((type, stats) -> nanos.put(type.getSimpleName(), stats.nanos.sum()));
+        return nanos;
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder a : new LongAdder[] { solves, solveNanos, components, converged, iterationLimited, cancelled, iterations }) {
+            a.reset();
+        }
+        lastSolveNanos = 0;
+        lastIterations = 0;
+        lastMaxError = 0;
+        types.clear();
+    }
+
+    // a few lines for a log or the end of a batch run
+    public String summary() {
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d passes, %.1f ms; %d components: %d converged, %d hit the iteration cap, %d cancelled; %d iterations%n",
+                                 getSolveCount(), getSolveNanos() / 1e6, getComponentCount(), getConvergedCount(),
+                                 getIterationLimitCount(), getCancelledCount(), getIterationCount()));
+        Map<String, Long> nanos = getApplyNanos();
+        getApplyCounts().forEach((type, count) -> out.append(String.format("  %-30s %12d applies %10.1f ms%n",
+                                                                           type, count, nanos.get(type) / 1e6)));
+        return out.toString();
+    }
+
+    private void emitTypes() {
+        types.forEach((type, stats) -> {
+            ConstraintTypeEvent event = new ConstraintTypeEvent();
+            event.type = type.getSimpleName();
+            event.applies = stats.applies.sum();
+            event.nanos = stats.nanos.sum();
+            event.commit();
+        });
+    }
+
+    // what one pass collects from its components, which may finish on several threads at once
+    public static class Pass {
+        private final ConstraintSolverManager.SolverMode mode;
+        private final boolean recorded;
+        private final SolveEvent event;
+        private final long start;
+        private final LongAdder components = new LongAdder();
+        private final LongAdder constraints = new LongAdder();
+        private final LongAdder converged = new LongAdder();
+        private final LongAdder iterationLimited = new LongAdder();
+        private final LongAdder cancelled = new LongAdder();
+        private final LongAdder iterations = new LongAdder();
+        private final LongAccumulator maxIterations = new LongAccumulator(Math::max, 0);
+        private final DoubleAccumulator maxError = new DoubleAccumulator(Math::max, 0);
+
+        private Pass(ConstraintSolverManager.SolverMode mode, boolean recorded, SolveEvent event) {
+            this.mode = mode;
+            this.recorded = recorded;
+            this.event = event;
+            event.begin();
+            this.start = System.nanoTime();
+        }
+
+        // whether the solver should time each constraint application for this pass
+        public boolean timesApplies() { return recorded; }
+
+        public void component(ConstraintComponent comp, int iterationCap) {
+            components.increment();
+            constraints.add(comp.size());
+            iterations.add(comp.getIterations());
+            maxIterations.accumulate(comp.getIterations());
+            // a component cancelled before its first sweep has no error to report
+            if (Double.isFinite(comp.getMaxError())) maxError.accumulate(comp.getMaxError());
+            if (comp.isConverged()) converged.increment();
+            else if (comp.getIterations() >= iterationCap) iterationLimited.increment();
+            else cancelled.increment();
+        }
+    }
+
+    @Name("sketchpad.Solve")
+    @Label("Constraint Solve")
+    @Category("Sketchpad")
+    @Description("One solver pass over a set of constraint components")
+    @StackTrace(false)
+    static class SolveEvent extends Event {
+        @Label("Mode") String mode;
+        @Label("Components") int components;
+        @Label("Constraints") int constraints;
+        @Label("Converged") int converged;
+        @Label("Hit Iteration Cap") int iterationLimited;
+        @Label("Iterations") @Description("Most iterations taken by any component") int iterations;
+        @Label("Max Error") double maxError;
+    }
+
+    @Name("sketchpad.ConstraintType")
+    @Label("Constraint Type Totals")
+    @Category("Sketchpad")
+    @Description("Applications and time per constraint type since start (needs sketchpad.metrics)")
+    @Period("1 s")
+    static class ConstraintTypeEvent extends Event {
+        @Label("Type") String type;
+        @Label("Applies") long applies;
+        @Label("Time") @Timespan(Timespan.NANOSECONDS) long nanos;
+    }
+}
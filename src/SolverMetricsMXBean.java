@@ -0,0 +1,34 @@
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Management interface of SolverMetrics, as seen from jconsole / VisualVM under
+ * "sketchpad:type=SolverMetrics".
+ */
+public interface SolverMetricsMXBean {
+    boolean isEnabled();
+    void setEnabled(boolean enabled);
+
+    // solver passes (one call to ConstraintSolverManager.solveComponents) and their wall time
+    long getSolveCount();
+    long getSolveNanos();
+    double getLastSolveMillis();
+
+    // components solved, by how they ended
+    long getComponentCount();
+    long getConvergedCount();
+    long getIterationLimitCount();
+    long getCancelledCount();
+    long getIterationCount();
+
+    // of the last pass: the most iterations any component took, and the largest remaining error
+    int getLastIterations();
+    double getLastMaxError();
+
+    // per constraint type (class name): how often it was applied, and the nanoseconds spent
+    Map<String, Long> getApplyCounts();
+    Map<String, Long> getApplyNanos();
+
+    void reset();
+}
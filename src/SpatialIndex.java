@@ -0,0 +1,225 @@
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Uniform grid over the drawing for snapping and hit-testing. Points go into the cell they sit
+ * in, lines into every cell the segment passes through, arcs into the cells of their bounding box.
+ * A query only looks at the few cells around the mouse, so clicks cost the same no matter how
+ * many objects are drawn.
+ *
+ * The grid must be told about every change: `insert`/`remove` for created and deleted objects,
+ * `update` after a line is re-wired, and `pointMoved` after a point moves (which also re-buckets
+ * the lines that end at that point). Each object remembers the order it was inserted in, so
+ * "topmost" means the same thing as iterating the objects list backwards.
+ */
+public class SpatialIndex {
+    private static final double DEFAULT_CELL_SIZE = 32;
+
+    private final double cellSize;
+    private final Map<Long, List<GeometricObject>> cells = new HashMap<>();
+    private final Map<GeometricObject, Entry> entries = new IdentityHashMap<>();
+    private long counter = 0;
+
+    private static class Entry {
+        final long z;
+        long[] keys;
+
+        Entry(long z, long[] keys) {
+            this.z = z;
+            this.keys = keys;
+        }
+    }
+
+    public SpatialIndex() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    public SpatialIndex(double cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public int size() { return entries.size(); }
+
+    public boolean contains(GeometricObject obj) { return entries.containsKey(obj); }
+
+    public void insert(GeometricObject obj) {
+        if (entries.containsKey(obj)) return;
+        long[] keys = cellsOf(obj);
+        entries.put(obj, new Entry(counter++, keys));
+        for (long key : keys) cells.computeIfAbsent(key, k -> new ArrayList<>()).add(obj);
+    }
+
+    public void remove(GeometricObject obj) {
+        Entry entry = entries.remove(obj);
+        if (entry == null) return;
+        for (long key : entry.keys) removeFromCell(key, obj);
+    }
+
+    // re-bucket an object whose geometry changed
+    public void update(GeometricObject obj) {
+        Entry entry = entries.get(obj);
+        if (entry == null) return;
+        long[] keys = cellsOf(obj);
+        if (Arrays.equals(keys, entry.keys)) return;
+        for (long key : entry.keys) removeFromCell(key, obj);
+        for (long key : keys) cells.computeIfAbsent(key, k -> new ArrayList<>()).add(obj);
+        entry.keys = keys;
+    }
+
+    // re-bucket a moved point and the lines that end at it
+    public void pointMoved(PointObject p) {
+        if (!entries.containsKey(p)) return;
+        List<LineObject> incident = linesAt(p);
+        update(p);
+        for (LineObject line : incident) update(line);
+    }
+
+    // lines that end at p; such a line always passes through p's (indexed) cell
+    public List<LineObject> linesAt(PointObject p) {
+        List<LineObject> incident = new ArrayList<>();
+        Entry entry = entries.get(p);
+        if (entry == null) return incident;
+        for (long key : entry.keys) {
+            for (GeometricObject obj : cells.getOrDefault(key, Collections.emptyList())) {
+                if (obj instanceof LineObject) {
+                    LineObject line = (LineObject) obj;
+                    if (line.getStartPoint() == p || line.getEndPoint() == p) incident.add(line);
+                }
+            }
+        }
+        return incident;
+    }
+
+    // first-inserted point whose hit area contains (x, y), like scanning the objects list in order
+    public PointObject findPoint(int x, int y, double tolerance) {
+        PointObject best = null;
+        long bestZ = Long.MAX_VALUE;
+        for (GeometricObject obj : candidates(x - tolerance, y - tolerance, x + tolerance, y + tolerance)) {
+            if (!(obj instanceof PointObject) || !obj.contains(x, y)) continue;
+            long z = entries.get(obj).z;
+            if (z < bestZ) {
+                best = (PointObject) obj;
+                bestZ = z;
+            }
+        }
+        return best;
+    }
+
+    // last-inserted object of the given type that contains (x, y), i.e. the one drawn on top
+    public <T extends GeometricObject> T findTopmost(int x, int y, double tolerance, Class<T> type) {
+        T best = null;
+        long bestZ = Long.MIN_VALUE;
+        for (GeometricObject obj : candidates(x - tolerance, y - tolerance, x + tolerance, y + tolerance)) {
+            if (!type.isInstance(obj) || !obj.contains(x, y)) continue;
+            long z = entries.get(obj).z;
+            if (z > bestZ) {
+                best = type.cast(obj);
+                bestZ = z;
+            }
+        }
+        return best;
+    }
+
+    // every object whose cells overlap the rectangle, each reported once
+    public void query(Rectangle2D rect, Consumer<GeometricObject> visitor) {
+        for (GeometricObject obj : candidates(rect.getMinX(), rect.getMinY(), rect.getMaxX(), rect.getMaxY())) {
+            visitor.accept(obj);
+        }
+    }
+
+    private Set<GeometricObject> candidates(double minX, double minY, double maxX, double maxY) {
+        Set<GeometricObject> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        int cx0 = cell(minX), cy0 = cell(minY), cx1 = cell(maxX), cy1 = cell(maxY);
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) {
+                List<GeometricObject> list = cells.get(key(cx, cy));
+                if (list != null) found.addAll(list);
+            }
+        }
+        return found;
+    }
+
+    private void removeFromCell(long key, GeometricObject obj) {
+        List<GeometricObject> list = cells.get(key);
+        if (list == null) return;
+        // by identity: two lines between the same points are equal() but are different objects
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if (list.get(i) == obj) {
+                list.set(i, list.get(list.size() - 1));
+                list.remove(list.size() - 1);
+                break;
+            }
+        }
+        if (list.isEmpty()) cells.remove(key);
+    }
+
+    private long[] cellsOf(GeometricObject obj) {
+        if (obj instanceof PointObject) {
+            PointObject p = (PointObject) obj;
+            return new long[] { key(cell(p.getX()), cell(p.getY())) };
+        }
+        if (obj instanceof LineObject) {
+            LineObject line = (LineObject) obj;
+            return segmentCells(line.getStartPoint().getX(), line.getStartPoint().getY(),
+                                line.getEndPoint().getX(), line.getEndPoint().getY());
+        }
+        Rectangle2D b = obj.getBounds();
+        if (obj instanceof ArcObject) {
+            // ArcObject.contains accepts clicks up to 20% of the radius outside the circle
+            b = new Rectangle2D.Double(b.getX() - b.getWidth() * 0.1, b.getY() - b.getHeight() * 0.1,
+                                       b.getWidth() * 1.2, b.getHeight() * 1.2);
+        }
+        int cx0 = cell(b.getMinX()), cy0 = cell(b.getMinY()), cx1 = cell(b.getMaxX()), cy1 = cell(b.getMaxY());
+        long[] keys = new long[(cx1 - cx0 + 1) * (cy1 - cy0 + 1)];
+        int k = 0;
+        for (int cx = cx0; cx <= cx1; cx++) {
+            for (int cy = cy0; cy <= cy1; cy++) keys[k++] = key(cx, cy);
+        }
+        return keys;
+    }
+
+    // cells crossed by a segment (Amanatides-Woo grid traversal)
+    private long[] segmentCells(double x1, double y1, double x2, double y2) {
+        int cx = cell(x1), cy = cell(y1);
+        int endX = cell(x2), endY = cell(y2);
+        int n = Math.abs(endX - cx) + Math.abs(endY - cy) + 1;
+        long[] keys = new long[n];
+        double dx = x2 - x1, dy = y2 - y1;
+        int stepX = dx > 0 ? 1 : -1, stepY = dy > 0 ? 1 : -1;
+        // distance along the segment (t in [0, 1]) to the next vertical / horizontal cell border
+        double tMaxX = dx == 0 ? Double.POSITIVE_INFINITY : ((cx + (dx > 0 ? 1 : 0)) * cellSize - x1) / dx;
+        double tMaxY = dy == 0 ? Double.POSITIVE_INFINITY : ((cy + (dy > 0 ? 1 : 0)) * cellSize - y1) / dy;
+        double tDeltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dx);
+        double tDeltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellSize / Math.abs(dy);
+        keys[0] = key(cx, cy);
+        for (int i = 1; i < n; i++) {
+            if ((tMaxX < tMaxY && cx != endX) || cy == endY) {
+                cx += stepX;
+                tMaxX += tDeltaX;
+            } else {
+                cy += stepY;
+                tMaxY += tDeltaY;
+            }
+            keys[i] = key(cx, cy);
+        }
+        return keys;
+    }
+
+    private int cell(double v) {
+        return (int) Math.floor(v / cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) ^ (cy & 0xffffffffL);
+    }
+}
@@ -0,0 +1,88 @@
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * SVG export (".svg"), for looking at or printing a drawing outside the program. Points become
+ * small filled circles, lines and arcs become strokes; constraints have no picture and are left
+ * out. Elements are written one by one as the objects are visited, so nothing but the output
+ * buffer is held in memory. There is no import: an SVG file is a picture, not a sketch.
+ */
+public class SvgSketchFormat implements SketchFormat {
+    @Override
+    public String extension() { return ".svg"; }
+
+    @Override
+    public void read(Path file, SketchEngine engine) throws IOException {
+        throw new IOException(file + ": SVG files can only be written");
+    }
+
+    @Override
+    public void write(SketchEngine engine, Path file) throws IOException {
+        List<GeometricObject> objects = engine.getObjects();
+        Rectangle2D bounds = engine.getBounds();
+        if (bounds == null) bounds = new Rectangle2D.Double(0, 0, 1, 1);
+        double pad = PointObject.SIZE;
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder element = new StringBuilder(128);
+            element.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"")
+                   .append(bounds.getX() - pad).append(' ').append(bounds.getY() - pad).append(' ')
+                   .append(bounds.getWidth() + 2 * pad).append(' ').append(bounds.getHeight() + 2 * pad).append("\">");
+            emit(out, element);
+            out.write("<g stroke=\"black\" fill=\"none\">");
+            out.newLine();
+            for (GeometricObject obj : objects) {
+                element.setLength(0);
+                if (obj instanceof PointObject) {
+                    PointObject p = (PointObject) obj;
+                    element.append("<circle cx=\"").append(p.getX()).append("\" cy=\"").append(p.getY())
+                           .append("\" r=\"").append(PointObject.SIZE / 2.0).append("\" fill=\"black\" stroke=\"none\"/>");
+                } else if (obj instanceof LineObject) {
+                    LineObject line = (LineObject) obj;
+                    element.append("<line x1=\"").append(line.getStartPoint().getX())
+                           .append("\" y1=\"").append(line.getStartPoint().getY())
+                           .append("\" x2=\"").append(line.getEndPoint().getX())
+                           .append("\" y2=\"").append(line.getEndPoint().getY()).append("\"/>");
+                } else if (obj instanceof ArcObject) {
+                    arc(element, (ArcObject) obj);
+                } else {
+                    continue;
+                }
+                emit(out, element);
+            }
+            out.write("</g>");
+            out.newLine();
+            out.write("</svg>");
+            out.newLine();
+        }
+    }
+
+    // Graphics.drawArc angles are counterclockwise on screen from 3 o'clock; a full turn is split
+    // in two because a path arc cannot end where it starts
+    private static void arc(StringBuilder element, ArcObject arc) {
+        double rx = arc.getWidth() / 2.0, ry = arc.getHeight() / 2.0;
+        double cx = arc.getX() + rx, cy = arc.getY() + ry;
+        double sweep = Math.max(-360, Math.min(360, arc.getArcAngle()));
+        int pieces = Math.abs(sweep) > 180 ? 2 : 1;
+        double angle = Math.toRadians(arc.getStartAngle());
+        element.append("<path d=\"M ").append(cx + rx * Math.cos(angle)).append(' ').append(cy - ry * Math.sin(angle));
+        for (int k = 0; k < pieces; k++) {
+            angle += Math.toRadians(sweep / pieces);
+            // counterclockwise on screen is SVG's negative direction, sweep-flag 0
+            element.append(" A ").append(rx).append(' ').append(ry).append(" 0 0 ").append(sweep > 0 ? 0 : 1).append(' ')
+                   .append(cx + rx * Math.cos(angle)).append(' ').append(cy - ry * Math.sin(angle));
+        }
+        element.append("\"/>");
+    }
+
+    private static void emit(BufferedWriter out, StringBuilder element) throws IOException {
+        out.append(element);
+        out.newLine();
+    }
+}
@@ -0,0 +1,109 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Plain text sketch files (".sketch"), one object per line:
+ *
+ *   point x y
+ *   line p q                      p, q: point numbers
+ *   arc x y width height start sweep
+ *   constraint kind l [m ...]     kind as in SketchFormats, l, m: line numbers
+ *
+ * Points and lines are numbered from 0 in the order they appear, so a line has to come after its
+ * endpoints and a constraint after its lines. Blank lines and lines starting with '#' are skipped.
+ * Both directions stream through the file, so large sketches are never held in memory as text.
+ */
+public class TextSketchFormat implements SketchFormat {
+    @Override
+    public String extension() { return ".sketch"; }
+
+    @Override
+    public void read(Path file, SketchEngine engine) throws IOException {
+        List<PointObject> points = new ArrayList<>();
+        List<LineObject> lines = new ArrayList<>();
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String text;
+            int lineNumber = 0;
+            while ((text = in.readLine()) != null) {
+                lineNumber++;
+                text = text.trim();
+                if (text.isEmpty() || text.startsWith("#")) continue;
+                String[] f = text.split("\\s+");
+                try {
+                    switch (f[0]) {
+                        case "point":
+                            points.add(engine.addPoint(Double.parseDouble(f[1]), Double.parseDouble(f[2])));
+                            break;
+                        case "line":
+                            lines.add(engine.addLine(points.get(Integer.parseInt(f[1])),
+                                                     points.get(Integer.parseInt(f[2]))));
+                            break;
+                        case "arc":
+                            engine.add(new ArcObject(Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                                                     Integer.parseInt(f[3]), Integer.parseInt(f[4]),
+                                                     Integer.parseInt(f[5]), Integer.parseInt(f[6])));
+                            break;
+                        case "constraint":
+                            List<LineObject> operands = new ArrayList<>();
+                            for (int i = 2; i < f.length; i++) operands.add(lines.get(Integer.parseInt(f[i])));
+                            engine.addConstraint(SketchFormats.constraint(f[1], operands));
+                            break;
+                        default:
+                            throw new IllegalArgumentException("unknown record '" + f[0] + "'");
+                    }
+                } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                    // NumberFormatException is an IllegalArgumentException
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void write(SketchEngine engine, Path file) throws IOException {
+        // point number by store slot; slots of deleted points stay -1
+        int[] pointIds = new int[engine.getPointStore().size()];
+        Arrays.fill(pointIds, -1);
+        Map<LineObject, Integer> lineIds = new IdentityHashMap<>();
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            int next = 0;
+            for (GeometricObject obj : engine.getObjects()) {
+                if (!(obj instanceof PointObject)) continue;
+                PointObject p = (PointObject) obj;
+                pointIds[p.getIndex()] = next++;
+                out.write("point " + p.getX() + " " + p.getY());
+                out.newLine();
+            }
+            for (GeometricObject obj : engine.getObjects()) {
+                if (obj instanceof LineObject) {
+                    LineObject line = (LineObject) obj;
+                    lineIds.put(line, lineIds.size());
+                    out.write("line " + pointIds[line.getStartPoint().getIndex()] + " " + pointIds[line.getEndPoint().getIndex()]);
+                    out.newLine();
+                } else if (obj instanceof ArcObject) {
+                    ArcObject arc = (ArcObject) obj;
+                    out.write("arc " + arc.getX() + " " + arc.getY() + " " + arc.getWidth() + " " + arc.getHeight()
+                              + " " + arc.getStartAngle() + " " + arc.getArcAngle());
+                    out.newLine();
+                }
+            }
+            for (Constraint c : engine.getConstraints()) {
+                StringBuilder record = new StringBuilder("constraint ").append(SketchFormats.kindOf(c));
+                for (LineObject line : c.lines()) record.append(' ').append(lineIds.get(line));
+                out.write(record.toString());
+                out.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.SwingUtilities;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Cache of the drawing rendered into square device-pixel tiles, keyed by (zoom level, tile x,
+ * tile y). Zoom levels are discrete (scale = ZOOM_STEP^level) so a tile can be reused every time
+ * we come back to its level, and tiles are aligned to the level's own pixel grid (not to the
+ * screen), so panning only changes where the cached images are blitted.
+ *
+ * Painting never renders on the EDT: a missing or invalidated tile is queued, its geometry is
+ * collected from the RenderBatches on the EDT, rasterized on a background thread, and handed back
+ * on the EDT, after which its screen area is repainted. An invalidated tile keeps showing its old
+ * image until the new one is ready. Least recently painted tiles are dropped once the images
+ * exceed the memory budget.
+ */
+public class TileCache {
+    public static final int TILE = 256;
+    public static final double ZOOM_STEP = 1.1;
+    private static final long DEFAULT_BUDGET_BYTES = 64L << 20;
+    private static final long TILE_BYTES = 4L * TILE * TILE;
+
+    // repaint the given rectangle, in the pixel grid of the given zoom level
+    public interface Listener {
+        void tileReady(int level, Rectangle area);
+    }
+
+    private final RenderBatches batches;
+    private final Listener listener;
+    private final long budgetBytes;
+    // access order, so iteration starts at the least recently painted tile
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    // the same entries by zoom level, so an edit only visits the tiles over it; looking an entry up
+    // here does not count as painting it
+    private final Map<Integer, Map<Long, Entry>> levels = new HashMap<>();
+    private long bytes = 0;
+    // tiles handed to the renderer and not installed yet
+    private int inFlight = 0;
+    // the zoom level painted before the current one; its tiles stand in for tiles not rendered yet
+    private int level = 0, previousLevel = 0;
+    private final ExecutorService renderer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "sketchpad-tiles");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // EDT-only, like everything else here except the rasterizing itself
+    private static class Entry {
+        final int level, tx, ty;
+        BufferedImage image = null;
+        // bumped by every invalidation; a finished render only counts if it is still current
+        int version = 0;
+        boolean stale = true;
+        boolean rendering = false;
+
+        Entry(int level, int tx, int ty) {
+            this.level = level;
+            this.tx = tx;
+            this.ty = ty;
+        }
+    }
+
+    public TileCache(RenderBatches batches, Listener listener) {
+        this(batches, listener, DEFAULT_BUDGET_BYTES);
+    }
+
+    public TileCache(RenderBatches batches, Listener listener, long budgetBytes) {
+        this.batches = batches;
+        this.listener = listener;
+        this.budgetBytes = budgetBytes;
+    }
+
+    public static double scaleOf(int level) {
+        return Math.pow(ZOOM_STEP, level);
+    }
+
+    public int size() { return entries.size(); }
+
+    public long bytes() { return bytes; }
+
+    public int pending() { return inFlight; }
+
+    // blit the tiles covering `clip` (device pixels) at zoom `level`, with the drawing's origin at
+    // (panX, panY); tiles that are missing or stale are queued for rendering
+    public void paint(Graphics2D g, int level, int panX, int panY, Rectangle clip) {
+        if (level != this.level) {
+            previousLevel = this.level;
+            this.level = level;
+        }
+        int tx0 = Math.floorDiv(clip.x - panX, TILE), ty0 = Math.floorDiv(clip.y - panY, TILE);
+        int tx1 = Math.floorDiv(clip.x + clip.width - 1 - panX, TILE);
+        int ty1 = Math.floorDiv(clip.y + clip.height - 1 - panY, TILE);
+        for (int tx = tx0; tx <= tx1; tx++) {
+            for (int ty = ty0; ty <= ty1; ty++) {
+                long key = key(level, tx, ty);
+                Entry entry = entries.get(key);
+                if (entry == null) {
+                    entry = new Entry(level, tx, ty);
+                    entries.put(key, entry);
+                    levels.computeIfAbsent(level, l -> new HashMap<>()).put(key, entry);
+                }
+                if (entry.image != null) g.drawImage(entry.image, tx * TILE + panX, ty * TILE + panY, null);
+                else if (previousLevel != level) drawStandIn(g, level, tx, ty, panX, panY);
+                if (entry.stale && !entry.rendering) render(entry);
+            }
+        }
+    }
+
+    // fill a tile that has no image yet with the previous level's tiles, stretched to this level
+    private void drawStandIn(Graphics2D g, int level, int tx, int ty, int panX, int panY) {
+        double ratio = scaleOf(level) / scaleOf(previousLevel);
+        int x0 = tx * TILE, y0 = ty * TILE;
+        Shape clip = g.getClip();
+        g.clipRect(x0 + panX, y0 + panY, TILE, TILE);
+        int px0 = (int) Math.floor(x0 / ratio / TILE), py0 = (int) Math.floor(y0 / ratio / TILE);
+        int px1 = (int) Math.floor((x0 + TILE) / ratio / TILE), py1 = (int) Math.floor((y0 + TILE) / ratio / TILE);
+        for (int px = px0; px <= px1; px++) {
+            for (int py = py0; py <= py1; py++) {
+                Entry old = entries.get(key(previousLevel, px, py));
+                if (old == null || old.image == null) continue;
+                int dx = (int) Math.floor(px * TILE * ratio), dy = (int) Math.floor(py * TILE * ratio);
+                int size = (int) Math.ceil(TILE * ratio);
+                g.drawImage(old.image, dx + panX, dy + panY, size, size, null);
+            }
+        }
+        g.setClip(clip);
+    }
+
+    // the drawing changed inside `area` (drawing coordinates): re-render the tiles over it
+    public void invalidate(Rectangle2D area) {
+        for (Map.Entry<Integer, Map<Long, Entry>> e : levels.entrySet()) {
+            int level = e.getKey();
+            Map<Long, Entry> cached = e.getValue();
+            double scale = scaleOf(level);
+            // one pixel of slack for strokes on the tile border
+            int tx0 = (int) Math.ceil((area.getMinX() * scale - 1) / TILE) - 1;
+            int ty0 = (int) Math.ceil((area.getMinY() * scale - 1) / TILE) - 1;
+            int tx1 = (int) Math.floor((area.getMaxX() * scale + 1) / TILE);
+            int ty1 = (int) Math.floor((area.getMaxY() * scale + 1) / TILE);
+            if (tx1 < tx0 || ty1 < ty0) continue;
+            // an area bigger than what is cached at this level: check the cached tiles instead
+            if ((long) (tx1 - tx0 + 1) * (ty1 - ty0 + 1) > cached.size()) {
+                for (Entry entry : cached.values()) {
+                    if (entry.tx >= tx0 && entry.tx <= tx1 && entry.ty >= ty0 && entry.ty <= ty1) markStale(entry);
+                }
+                continue;
+            }
+            for (int tx = tx0; tx <= tx1; tx++) {
+                for (int ty = ty0; ty <= ty1; ty++) {
+                    Entry entry = cached.get(key(level, tx, ty));
+                    if (entry != null) markStale(entry);
+                }
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Entry entry : entries.values()) markStale(entry);
+    }
+
+    private static void markStale(Entry entry) {
+        entry.version++;
+        entry.stale = true;
+    }
+
+    private void render(Entry entry) {
+        double scale = scaleOf(entry.level);
+        Rectangle2D area = new Rectangle2D.Double(entry.tx * TILE / scale, entry.ty * TILE / scale,
+                                                  TILE / scale, TILE / scale);
+        RenderBatches.Snapshot snapshot = batches.snapshot(area, scale);
+        int version = entry.version;
+        entry.rendering = true;
+        inFlight++;
+        renderer.execute(() -> {
+            BufferedImage image = new BufferedImage(TILE, TILE, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            g.translate(-entry.tx * TILE, -entry.ty * TILE);
+            g.scale(scale, scale);
+            snapshot.paint(g);
+            g.dispose();
+            SwingUtilities.invokeLater(() -> install(entry, image, version));
+        });
+    }
+
+    private void install(Entry entry, BufferedImage image, int version) {
+        entry.rendering = false;
+        inFlight--;
+        // evicted while it was rendering
+        if (entries.get(key(entry.level, entry.tx, entry.ty)) != entry) return;
+        if (entry.image == null) bytes += TILE_BYTES;
+        entry.image = image;
+        // invalidated again meanwhile: keep the new image, but render once more
+        entry.stale = entry.version != version;
+        evict();
+        listener.tileReady(entry.level, new Rectangle(entry.tx * TILE, entry.ty * TILE, TILE, TILE));
+    }
+
+    private void evict() {
+        List<Long> dropped = new ArrayList<>();
+        Iterator<Map.Entry<Long, Entry>> it = entries.entrySet().iterator();
+        while (bytes > budgetBytes && it.hasNext()) {
+            Map.Entry<Long, Entry> e = it.next();
+            if (e.getValue().image == null) continue;
+            bytes -= TILE_BYTES;
+            dropped.add(e.getKey());
+        }
+        for (Long key : dropped) {
+            Entry entry = entries.remove(key);
+            Map<Long, Entry> cached = levels.get(entry.level);
+            cached.remove(key);
+            if (cached.isEmpty()) levels.remove(entry.level);
+        }
+    }
+
+    private static long key(int level, int tx, int ty) {
+        return ((long) (level & 0xffff) << 48) | ((long) (tx & 0xffffff) << 24) | (ty & 0xffffff);
+    }
+}
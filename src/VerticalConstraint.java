@@ -1,3 +1,5 @@
+import java.util.List;
+
 /**
  * Junita Sirait - COS583
  * 
@@ -9,23 +11,35 @@
  */
 public class VerticalConstraint implements Constraint {
     private final LineObject line; 
-    private double error; 
 
     public VerticalConstraint(LineObject line) {
         this.line = line; 
     } 
 
-    public void apply() {
+    public List<LineObject> lines() {
+        return List.of(line); 
+    } 
+
+    public int[] points() {
+        return new int[] { line.getStartPoint().getIndex(), line.getEndPoint().getIndex() }; 
+    } 
+
+    public double apply(double[] xs, double[] ys, int[] at) {
         // System.out.println("Applying VERTICAL constraint"); 
-        PointObject p1 = line.getStartPoint(), p2 = line.getEndPoint(); 
-        int dx = p2.getX() - p1.getX(); 
-        int delta = dx/2; 
-        p1.moveBy(delta, 0); 
-        p2.moveBy(-1*delta, 0); 
-        this.error = Math.abs(dx); 
+        int p1 = at[0], p2 = at[1]; 
+        double dx = xs[p2] - xs[p1]; 
+        double delta = dx/2; 
+        xs[p1] += delta; 
+        xs[p2] -= delta; 
+        return Math.abs(dx); 
+    } 
+
+    public double residual(int row, double[] xs, double[] ys, int[] at) {
+        return xs[at[1]] - xs[at[0]]; 
     } 
 
-    public double error() {
-        return this.error; 
-    }
+    public void gradient(int row, double[] xs, double[] ys, int[] at, double[] grad) {
+        grad[0] = -1; grad[1] = 0; 
+        grad[2] = 1;  grad[3] = 0; 
+    } 
 }
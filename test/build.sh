@@ -0,0 +1,14 @@
+#!/bin/bash
+# compile the sources with the tests in test/src and run every *Test class; exits non-zero on
+# the first failing test
+cd "$(dirname "$0")/.."
+
+echo "Compiling..."
+rm -rf test/out
+mkdir -p test/out
+javac -d test/out src/*.java test/src/*.java || exit 1
+
+echo "Running..."
+for test in test/src/*Test.java; do
+    java -Djava.awt.headless=true -ea -cp test/out "$(basename "$test" .java)" || exit 1
+done
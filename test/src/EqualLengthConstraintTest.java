@@ -0,0 +1,36 @@
+import java.util.List;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * A 10 px and a 30 px line under an EqualLengthConstraint have to end up the same length (both
+ * 20 px, their mean) instead of swapping lengths on every apply.
+ */
+public class EqualLengthConstraintTest {
+    public static void main(String[] args) {
+        SketchEngine engine = new SketchEngine();
+        LineObject shorter = engine.addLine(engine.addPoint(0, 0), engine.addPoint(10, 0));
+        LineObject longer = engine.addLine(engine.addPoint(0, 50), engine.addPoint(30, 50));
+        engine.addConstraint(new EqualLengthConstraint(shorter, longer));
+
+        List<ConstraintComponent> components = engine.solve();
+        check(components.size() == 1, "expected one component, got " + components.size());
+        ConstraintComponent comp = components.get(0);
+        check(comp.isConverged(), "not converged: error " + comp.getMaxError() + " after " + comp.getIterations() + " iterations");
+        check(comp.getIterations() <= 2, "took " + comp.getIterations() + " iterations");
+
+        double a = length(shorter), b = length(longer);
+        check(Math.abs(a - b) < 1e-9, "lengths " + a + " and " + b);
+        check(Math.abs(a - 20) < 1e-9, "lengths should meet at 20, got " + a);
+        System.out.println("EqualLengthConstraintTest: ok");
+    }
+
+    private static double length(LineObject line) {
+        return Math.hypot(line.getEndPoint().getX() - line.getStartPoint().getX(),
+                          line.getEndPoint().getY() - line.getStartPoint().getY());
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new AssertionError(message);
+    }
+}
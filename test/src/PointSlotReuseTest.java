@@ -0,0 +1,47 @@
+/**
+ * Junita Sirait - COS583
+ *
+ * Removing a point gives its PointStore slot back: the next point reuses it instead of the store
+ * growing, and a solve gathered before the removal does not write into the point that took the
+ * slot over.
+ */
+public class PointSlotReuseTest {
+    public static void main(String[] args) {
+        SketchEngine engine = new SketchEngine();
+        PointStore store = engine.getPointStore();
+        PointObject a = engine.addPoint(0, 0), b = engine.addPoint(100, 30);
+        LineObject line = engine.addLine(a, b);
+        engine.addConstraint(new HorizontalConstraint(line));
+        SolveWorkspace stale = SolveWorkspace.gather(store,
+                engine.getConstraintGraph().affected(engine.getDirtyPoints(), engine.getDirtyConstraints()));
+
+        // the line goes, and both endpoints with it
+        engine.delete(line);
+        check(store.live() == 0, store.live() + " slots still in use");
+        int size = store.size();
+        PointObject c = engine.addPoint(70, 80), d = engine.addPoint(9, 10);
+        check(store.size() == size, "the store grew instead of reusing freed slots");
+        check(c.getIndex() != d.getIndex(), "two live points share a slot");
+        check((c.getIndex() == a.getIndex() || c.getIndex() == b.getIndex())
+              && (d.getIndex() == a.getIndex() || d.getIndex() == b.getIndex()), "freed slots were not reused");
+
+        // the old solve finishes now: its points are gone, the new owners of the slots stay put
+        for (int i = 0; i < stale.size(); i++) {
+            stale.xs()[i] = -1;
+            stale.ys()[i] = -1;
+        }
+        engine.applySolved(stale, stale.xs(), stale.ys());
+        check(c.getX() == 70 && c.getY() == 80 && d.getX() == 9 && d.getY() == 10, "a stale solve moved a new point");
+
+        // merging frees the slot of the point merged away
+        engine.addPoint(9.5, 10.5);
+        int live = store.live();
+        engine.mergeClosePoints();
+        check(store.live() == live - 1, "merge did not free a slot");
+        System.out.println("PointSlotReuseTest: ok");
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * PointWelder has to find the same clusters as comparing every pair: through chains, across grid
+ * cell borders and at negative coordinates, and with the parallel pair search as without it.
+ */
+public class PointWelderTest {
+    private static final double THRESHOLD = 5;
+
+    public static void main(String[] args) {
+        chain();
+        cellBorders();
+        negativeCoordinates();
+        againstAllPairs();
+        parallelMatchesSequential();
+        System.out.println("PointWelderTest: ok");
+    }
+
+    // a-b and b-c are close, a-c is not: all three still end up in a's cluster, at its centroid
+    private static void chain() {
+        PointStore store = new PointStore();
+        List<PointObject> points = points(store, 0, 0, 4, 0, 8, 0, 20, 0);
+        int[] survivor = PointWelder.clusters(points, THRESHOLD);
+        check(Arrays.equals(survivor, new int[] { 0, 0, 0, 3 }), "chain: " + Arrays.toString(survivor));
+        double[][] centroids = PointWelder.centroids(points, survivor);
+        check(centroids[0][0] == 4 && centroids[0][1] == 0, "chain centroid: " + Arrays.toString(centroids[0]));
+        check(centroids[3] == null, "a point welded to nothing has no centroid");
+    }
+
+    // partners just either side of a cell border, and exactly THRESHOLD apart (not welded)
+    private static void cellBorders() {
+        PointStore store = new PointStore();
+        List<PointObject> points = points(store,
+                4.999, 0, 5.001, 0,         // across x = 5
+                100, -0.001, 100, 0.001,    // across y = 0
+                200, 0, 205, 0,             // exactly THRESHOLD apart
+                299, 299, 302.5, 302.5);    // diagonal neighbour cells, 4.95 apart
+        int[] survivor = PointWelder.clusters(points, THRESHOLD);
+        check(Arrays.equals(survivor, new int[] { 0, 0, 2, 2, 4, 5, 6, 6 }), "cell borders: " + Arrays.toString(survivor));
+    }
+
+    private static void negativeCoordinates() {
+        PointStore store = new PointStore();
+        List<PointObject> points = points(store, -10, -10, -12, -11, -20, -10, -0.5, -0.5, 0.5, 0.5, -1000.2, 3, -997.9, 3);
+        int[] survivor = PointWelder.clusters(points, THRESHOLD);
+        check(Arrays.equals(survivor, new int[] { 0, 0, 2, 3, 3, 5, 5 }), "negative: " + Arrays.toString(survivor));
+    }
+
+    // random points around the origin, dense enough for chains, checked against every pair
+    private static void againstAllPairs() {
+        Random random = new Random(7);
+        PointStore store = new PointStore();
+        List<PointObject> points = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            points.add(new PointObject(store, (random.nextDouble() - 0.5) * 400, (random.nextDouble() - 0.5) * 400));
+        }
+        int[] survivor = PointWelder.clusters(points, THRESHOLD);
+        int[] expected = allPairs(points);
+        check(Arrays.equals(survivor, expected), "random points differ from the all-pairs clusters");
+    }
+
+    private static void parallelMatchesSequential() {
+        Random random = new Random(11);
+        PointStore store = new PointStore();
+        List<PointObject> points = new ArrayList<>();
+        int n = PointWelder.PARALLEL_THRESHOLD + 10_000;
+        double side = Math.sqrt(n) * THRESHOLD;
+        for (int i = 0; i < n; i++) {
+            points.add(new PointObject(store, (random.nextDouble() - 0.5) * side, (random.nextDouble() - 0.5) * side));
+        }
+        int[] parallel = PointWelder.clusters(points, THRESHOLD, true);
+        int[] sequential = PointWelder.clusters(points, THRESHOLD, false);
+        check(Arrays.equals(parallel, sequential), "parallel and sequential pair searches differ");
+        check(Arrays.equals(PointWelder.clusters(points, THRESHOLD), parallel), "above the threshold clusters is not the parallel result");
+        int welded = 0;
+        for (int i = 0; i < n; i++) if (parallel[i] != i) welded++;
+        check(welded > 0, "nothing welded, the test proves nothing");
+    }
+
+    // union-find over every pair closer than THRESHOLD, roots the smallest index
+    private static int[] allPairs(List<PointObject> points) {
+        int n = points.size();
+        int[] root = new int[n];
+        for (int i = 0; i < n; i++) root[i] = i;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                double d = Math.hypot(points.get(i).getX() - points.get(j).getX(), points.get(i).getY() - points.get(j).getY());
+                if (d >= THRESHOLD) continue;
+                int a = find(root, i), b = find(root, j);
+                if (a < b) root[b] = a;
+                else if (b < a) root[a] = b;
+            }
+        }
+        for (int i = 0; i < n; i++) root[i] = find(root, i);
+        return root;
+    }
+
+    private static int find(int[] root, int i) {
+        while (root[i] != i) i = root[i];
+        return i;
+    }
+
+    private static List<PointObject> points(PointStore store, double... xy) {
+        List<PointObject> points = new ArrayList<>();
+        for (int i = 0; i < xy.length; i += 2) points.add(new PointObject(store, xy[i], xy[i + 1]));
+        return points;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new AssertionError(message);
+    }
+}
@@ -0,0 +1,53 @@
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * Zoomed out, RenderBatches drops segments that snap to the same device pixels. Two lines that
+ * only share their far endpoint must both still be drawn, at negative coordinates as well as
+ * positive ones.
+ */
+public class RenderBatchesTest {
+    public static void main(String[] args) {
+        for (double scale : new double[] { 1.0, 0.5, 0.25 }) {
+            check(bothDrawn(-100, scale), "line at negative coordinates lost at scale " + scale);
+            check(bothDrawn(400, scale), "line at positive coordinates lost at scale " + scale);
+        }
+        System.out.println("RenderBatchesTest: ok");
+    }
+
+    // lines (c-200, c)-(c, c) and (c-200, c-200)-(c, c) share the end (c, c); is the second one painted?
+    private static boolean bothDrawn(double c, double scale) {
+        PointStore store = new PointStore();
+        PointObject shared = new PointObject(store, c, c);
+        PointObject left = new PointObject(store, c - 200, c);
+        PointObject corner = new PointObject(store, c - 200, c - 200);
+        RenderBatches batches = new RenderBatches();
+        for (GeometricObject obj : new GeometricObject[] {
+                shared, left, corner, new LineObject(left, shared), new LineObject(corner, shared) }) {
+            batches.add(obj);
+        }
+
+        // device pixels centred on the drawing's (c-100, c-100), the second line's midpoint
+        int size = 200;
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.translate(size / 2 - Math.round((c - 100) * scale), size / 2 - Math.round((c - 100) * scale));
+        g.scale(scale, scale);
+        batches.paint(g, new Rectangle2D.Double(c - 300, c - 300, 400, 400));
+        g.dispose();
+
+        for (int x = size / 2 - 2; x <= size / 2 + 2; x++) {
+            for (int y = size / 2 - 2; y <= size / 2 + 2; y++) {
+                if ((image.getRGB(x, y) >>> 24) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new AssertionError(message);
+    }
+}
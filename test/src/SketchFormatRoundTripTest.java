@@ -0,0 +1,83 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Junita Sirait - COS583
+ *
+ * A generated drawing with every constraint kind (group constraints included) and an arc, written
+ * in each readable format and read back, has to come out identical: same SessionReplay checksum
+ * over the exact coordinates, lines, arcs and constraints. The formats store points, lines and
+ * arcs as separate sections, so the copy is compared with the original put in that order.
+ */
+public class SketchFormatRoundTripTest {
+    public static void main(String[] args) throws Exception {
+        SketchEngine original = SketchGenerator.workload("mixed", 2000, 42);
+        original.add(new ArcObject(10, 20, 300, 200, 15, 250));
+        check(hasGroups(original), "the drawing should include group constraints");
+        long expected = SessionReplay.checksum(byKind(original));
+
+        Path dir = Files.createTempDirectory("roundtrip");
+        try {
+            for (SketchFormat format : List.of(new BinarySketchFormat(), new JsonLinesSketchFormat(), new TextSketchFormat())) {
+                Path file = dir.resolve("drawing" + format.extension());
+                format.write(original, file);
+                SketchEngine copy = new SketchEngine();
+                format.read(file, copy);
+                check(copy.getObjects().size() == original.getObjects().size(),
+                      format.extension() + ": " + copy.getObjects().size() + " objects, expected " + original.getObjects().size());
+                check(copy.getConstraints().size() == original.getConstraints().size(),
+                      format.extension() + ": " + copy.getConstraints().size() + " constraints, expected " + original.getConstraints().size());
+                check(SessionReplay.checksum(copy) == expected, format.extension() + ": checksum differs after a round trip");
+            }
+        } finally {
+            for (SketchFormat format : SketchFormats.all()) Files.deleteIfExists(dir.resolve("drawing" + format.extension()));
+            Files.delete(dir);
+        }
+        System.out.println("SketchFormatRoundTripTest: ok");
+    }
+
+    // the same drawing with its points first, then its lines, then its arcs
+    private static SketchEngine byKind(SketchEngine engine) {
+        SketchEngine sorted = new SketchEngine();
+        Map<PointObject, PointObject> points = new IdentityHashMap<>();
+        Map<LineObject, LineObject> lines = new IdentityHashMap<>();
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof PointObject) {
+                PointObject p = (PointObject) obj;
+                points.put(p, sorted.addPoint(p.getX(), p.getY()));
+            }
+        }
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof LineObject) {
+                LineObject line = (LineObject) obj;
+                lines.put(line, sorted.addLine(points.get(line.getStartPoint()), points.get(line.getEndPoint())));
+            }
+        }
+        for (GeometricObject obj : engine.getObjects()) {
+            if (obj instanceof ArcObject) sorted.add(obj);
+        }
+        for (Constraint c : engine.getConstraints()) {
+            List<LineObject> operands = new ArrayList<>();
+            for (LineObject line : c.lines()) operands.add(lines.get(line));
+            sorted.addConstraint(SketchFormats.constraint(SketchFormats.kindOf(c), operands));
+        }
+        return sorted;
+    }
+
+    private static boolean hasGroups(SketchEngine engine) {
+        boolean parallel = false, equalLength = false;
+        for (Constraint c : engine.getConstraints()) {
+            parallel |= c instanceof ParallelGroupConstraint;
+            equalLength |= c instanceof EqualLengthGroupConstraint;
+        }
+        return parallel && equalLength;
+    }
+
+    private static void check(boolean ok, String message) {
+        if (!ok) throw new AssertionError(message);
+    }
+}